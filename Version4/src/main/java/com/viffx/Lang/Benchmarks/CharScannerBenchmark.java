@@ -0,0 +1,93 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.CharScanner;
+import com.viffx.Lang.Compiler.DfaScanner;
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.TokenSpan;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the {@link Lexer}'s throughput with the scalar and the vector {@link CharScanner}
+ * on generated inputs dominated by comments, string literals, identifiers and indentation.
+ *
+ * <p>Usage: {@code CharScannerBenchmark [megabytes]}. The vector scanner is only measured
+ * when the JVM is started with {@code --add-modules jdk.incubator.vector}.
+ */
+public class CharScannerBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+    private static final Set<String> KEYWORDS = Set.of("var", "val", "public", "private", "lambda");
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int length = megabytes * 1024 * 1024 / 2;
+        if (!CharScanner.vectorSupported()) {
+            System.out.println("jdk.incubator.vector is not loaded, only the scalar scanner is measured");
+        }
+
+        report("comments", generate(length, 1));
+        report("strings", generate(length, 2));
+        report("identifiers", generate(length, 3));
+        report("mixed", generate(length, 0));
+    }
+
+    private static void report(String input, char[] chars) throws Exception {
+        double scalar = measure(chars, CharScanner.scalar());
+        System.out.printf("%-12s scalar %8.2f Mtok/s", input, scalar);
+        if (CharScanner.vectorSupported()) {
+            double vector = measure(chars, CharScanner.vector());
+            System.out.printf("   vector %8.2f Mtok/s   (x%.2f)", vector, vector / scalar);
+        }
+        System.out.println();
+    }
+
+    // Returns millions of tokens per second
+    private static double measure(char[] chars, CharScanner scanner) throws Exception {
+        long tokens = 0;
+        for (int i = 0; i < WARMUP; i++) tokens += lex(chars, scanner);
+
+        tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) tokens += lex(chars, scanner);
+        return tokens / ((System.nanoTime() - start) / 1e3);
+    }
+
+    private static long lex(char[] chars, CharScanner scanner) throws Exception {
+        Lexer lexer = new Lexer(CharSource.of(chars), DfaScanner.legacy(), scanner, KEYWORDS);
+        long tokens = 0;
+        for (TokenSpan token = lexer.next(); token.type() != SymbolType.EOF; token = lexer.next()) tokens++;
+        return tokens;
+    }
+
+    /* Builds length characters of lines of the given kind:
+     * 1 = long comments, 2 = long string literals, 3 = long identifiers, 0 = a random mix of all three.
+     */
+    private static char[] generate(int length, int kind) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 256);
+        while (builder.length() < length) {
+            builder.append(" ".repeat(4 * (1 + random.nextInt(4))));
+            switch (kind == 0 ? 1 + random.nextInt(3) : kind) {
+                case 1 -> builder.append("# ").append(words(random, 12)).append(" #");
+                case 2 -> builder.append("var s = \"").append(words(random, 10)).append(" \\\"quoted\\\" ").append(words(random, 4)).append("\";");
+                default -> builder.append("val ").append(words(random, 1)).append("Value").append(random.nextInt(1000))
+                        .append(" = ").append(words(random, 1)).append("Identifier;");
+            }
+            builder.append('\n');
+        }
+        return builder.toString().toCharArray();
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(' ');
+            for (int j = 3 + random.nextInt(9); j > 0; j--) builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Grammar.Grammar;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares parsing a grammar file with {@link Grammar#load(String)} against loading its
+ * compiled form from a cache directory with {@link Grammar#load(String, Path)}.
+ *
+ * <p>Usage: {@code GrammarLoadBenchmark [grammarFile]}. The cache lives in a temporary
+ * directory that is written by the first cached load.
+ */
+public class GrammarLoadBenchmark {
+    private static final int WARMUP = 2000;
+    private static final int RUNS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        Path cache = Files.createTempDirectory("grammar-cache");
+
+        // parsing prints the symbol table, which would drown the results
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) checksum += Grammar.load(grammarFile).productionsCount();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += Grammar.load(grammarFile).productionsCount();
+        double parsed = (System.nanoTime() - start) / 1e3 / RUNS;
+
+        // the first cached load misses, parses and writes the cache file
+        for (int i = 0; i < WARMUP; i++) checksum += Grammar.load(grammarFile, cache).productionsCount();
+        System.setOut(out);
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += Grammar.load(grammarFile, cache).productionsCount();
+        double cached = (System.nanoTime() - start) / 1e3 / RUNS;
+
+        System.out.printf("%-8s %10.1f us/load%n", "parsed", parsed);
+        System.out.printf("%-8s %10.1f us/load (checksum %d)%n", "cached", cached, checksum);
+    }
+}
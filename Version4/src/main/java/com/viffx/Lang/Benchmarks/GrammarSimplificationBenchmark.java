@@ -0,0 +1,116 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.Action;
+import com.viffx.Lang.Compiler.ActionType;
+import com.viffx.Lang.Compiler.LALR1ParseTableGenerator;
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.TableDrivenParser;
+import com.viffx.Lang.Compiler.TokenTable;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.AstNode;
+import com.viffx.Lang.Symbols.NonTerminal;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compares a grammar with its {@link Grammar#simplify(java.util.function.ToIntFunction)} form:
+ * the size of the grammar and of its LALR(1) table, then the {@link TableDrivenParser} on the
+ * same input, counting the reductions it makes per token.
+ *
+ * <p>Usage: {@code GrammarSimplificationBenchmark [grammarFile] [sourceFile] [copies]}. The
+ * lines of the source that the grammar accepts on their own are repeated {@code copies} times.
+ */
+public class GrammarSimplificationBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        // loading prints its working, which would drown the results
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Grammar original = Grammar.load(grammarFile);
+        System.setOut(out);
+        Grammar simplified = original.simplify(LALR1ParseTableGenerator::conflicts);
+        LALR1ParseTableGenerator originalGenerator = new LALR1ParseTableGenerator(original, false);
+        List<HashMap<Integer, Action>> originalTable = originalGenerator.generate();
+        LALR1ParseTableGenerator simplifiedGenerator = new LALR1ParseTableGenerator(simplified, false);
+        List<HashMap<Integer, Action>> simplifiedTable = simplifiedGenerator.generate();
+
+        System.out.printf("%-12s %12s %12s %8s %8s %10s %10s%n", "", "productions", "empty", "states", "actions", "reduces", "conflicts");
+        report("original", original, originalTable, originalGenerator.conflicts());
+        report("simplified", simplified, simplifiedTable, simplifiedGenerator.conflicts());
+
+        TableDrivenParser originalParser = new TableDrivenParser(original, originalTable);
+        TableDrivenParser simplifiedParser = new TableDrivenParser(simplified, simplifiedTable);
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(sourceFile))) {
+            if (!line.isBlank() && parses(line, original, originalParser)) lines.add(line);
+        }
+        char[] input = String.join("\n", Collections.nCopies(copies, String.join("\n", lines))).toCharArray();
+        TokenTable originalTokens = TokenTable.tokenize(new Lexer(CharSource.of(input), original), original);
+        TokenTable simplifiedTokens = TokenTable.tokenize(new Lexer(CharSource.of(input), simplified), simplified);
+
+        System.out.printf("%nInput: %d chars, %d tokens%n", input.length, originalTokens.size());
+        parse("original", originalParser, originalTokens);
+        parse("simplified", simplifiedParser, simplifiedTokens);
+    }
+
+    private static void report(String name, Grammar grammar, List<HashMap<Integer, Action>> table, int conflicts) {
+        int empty = 0;
+        for (int p = 0; p < grammar.productionsCount(); p++) {
+            if (grammar.length(p) == 0) empty++;
+        }
+        int actions = 0, reduces = 0;
+        for (HashMap<Integer, Action> state : table) {
+            actions += state.size();
+            for (Action action : state.values()) {
+                if (action.type() == ActionType.REDUCE) reduces++;
+            }
+        }
+        System.out.printf("%-12s %12d %12d %8d %8d %10d %10d%n", name, grammar.productionsCount(), empty, table.size(), actions, reduces, conflicts);
+    }
+
+    private static void parse(String name, TableDrivenParser parser, TokenTable tokens) throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) checksum += parser.parse(tokens).children().size();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += parser.parse(tokens).children().size();
+        double parsing = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        // every non-terminal node is one reduction
+        double reductions = (double) nonTerminals(parser.parse(tokens)) / tokens.size();
+        System.out.printf("%-12s %10.2f ms/run %8.2f reductions/token (checksum %d)%n", name, parsing, reductions, checksum);
+    }
+
+    private static long nonTerminals(AstNode root) {
+        long count = 0;
+        List<AstNode> stack = new ArrayList<>(List.of(root));
+        while (!stack.isEmpty()) {
+            AstNode node = stack.removeLast();
+            if (node.symbol() instanceof NonTerminal) count++;
+            stack.addAll(node.children());
+        }
+        return count;
+    }
+
+    private static boolean parses(String line, Grammar grammar, TableDrivenParser parser) {
+        try {
+            parser.parse(TokenTable.tokenize(new Lexer(CharSource.of(line.toCharArray()), grammar), grammar));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.IncrementalLexer;
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.TokenTable;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Compares re-lexing a whole document after every keystroke against {@link IncrementalLexer}.
+ *
+ * <p>Each keystroke types a letter at a random position and deletes it again, so the document
+ * stays valid. Usage: {@code IncrementalLexerBenchmark [grammarFile] [sourceFile] [copies]}. The
+ * source (default {@code CodeTest1.txt}) is repeated {@code copies} times.
+ */
+public class IncrementalLexerBenchmark {
+    private static final int KEYSTROKES = 2000;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Grammar grammar = Grammar.load(grammarFile);
+        String text = String.join("\n", Collections.nCopies(copies, Files.readString(Path.of(sourceFile))));
+        System.out.println("Input: " + text.length() + " chars");
+
+        // Whole document per keystroke, on far fewer keystrokes since each one takes a full pass
+        long checksum = 0;
+        int full = KEYSTROKES / 100;
+        for (int i = 0; i < full; i++) checksum += lexAll(text, grammar);
+        long start = System.nanoTime();
+        for (int i = 0; i < full; i++) checksum += lexAll(text, grammar);
+        double fullMicros = (System.nanoTime() - start) / 1e3 / full;
+
+        IncrementalLexer document = new IncrementalLexer(grammar, text);
+        Random random = new Random(42);
+        long relexed = 0;
+        for (int i = 0; i < KEYSTROKES; i++) checksum += keystroke(document, random);
+        start = System.nanoTime();
+        for (int i = 0; i < KEYSTROKES; i++) {
+            checksum += keystroke(document, random);
+            relexed += document.relexedTokens();
+        }
+        double incrementalMicros = (System.nanoTime() - start) / 1e3 / KEYSTROKES;
+
+        System.out.printf("%-12s %12.2f us/keystroke%n", "full", fullMicros);
+        System.out.printf("%-12s %12.2f us/keystroke (%.1f tokens re-lexed, checksum %d)%n",
+                "incremental", incrementalMicros, relexed / (2.0 * KEYSTROKES), checksum);
+    }
+
+    private static long lexAll(String text, Grammar grammar) {
+        return TokenTable.tokenize(new Lexer(CharSource.of(text), grammar), grammar).size();
+    }
+
+    // Types a letter at a random offset and deletes it again
+    private static long keystroke(IncrementalLexer document, Random random) {
+        int offset = document.lineStart(random.nextInt(document.lineCount()));
+        long size = document.edit(offset, 0, "x").size();
+        return size + document.edit(offset, 1, "").size();
+    }
+}
@@ -0,0 +1,74 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Utils.CharSource;
+import com.viffx.Lang.Utils.LexicalCharacterBuffer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares walking a multi-megabyte source through {@link LexicalCharacterBuffer}
+ * when it is backed by {@code BufferedReader(new FileReader(...))} against the
+ * memory-mapped {@link CharSource#mapped(String)} backend.
+ *
+ * <p>Usage: {@code LexicalCharacterBufferBenchmark [sourceFile] [megabytes]}.
+ * The source file (default {@code CodeTest1.txt}) is repeated until the input
+ * reaches the requested size.
+ */
+public class LexicalCharacterBufferBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String seed = args.length > 0 ? args[0] : "src/main/resources/CodeTest1.txt";
+        int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        Path input = generateInput(Path.of(seed), megabytes);
+        try {
+            String filePath = input.toString();
+            System.out.println("Input: " + Files.size(input) / (1024 * 1024) + " MB");
+            report("BufferedReader", filePath, false);
+            report("MappedCharSource", filePath, true);
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    static Path generateInput(Path seed, int megabytes) throws IOException {
+        byte[] block = Files.readAllBytes(seed);
+        Path input = Files.createTempFile("lexer-benchmark", ".txt");
+        long target = (long) megabytes * 1024 * 1024;
+        try (var out = Files.newOutputStream(input)) {
+            for (long written = 0; written < target; written += block.length + 1) {
+                out.write(block);
+                out.write('\n');
+            }
+        }
+        return input;
+    }
+
+    private static void report(String name, String filePath, boolean mapped) throws IOException {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) checksum += walk(filePath, mapped);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += walk(filePath, mapped);
+        double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        System.out.printf("%-18s %10.2f ms/run (checksum %d)%n", name, millis, checksum);
+    }
+
+    private static long walk(String filePath, boolean mapped) throws IOException {
+        LexicalCharacterBuffer buffer = mapped
+                ? new LexicalCharacterBuffer(filePath)
+                : new LexicalCharacterBuffer(CharSource.of(new BufferedReader(new FileReader(filePath))));
+        long checksum = 0;
+        while (!buffer.eof()) {
+            checksum += buffer.crntChar();
+            buffer.nextChar();
+        }
+        return checksum;
+    }
+}
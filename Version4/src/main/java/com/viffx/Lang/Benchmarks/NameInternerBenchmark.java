@@ -0,0 +1,106 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Symbols.NameInterner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares ways of turning identifier spans into names: a new {@code String} per occurrence,
+ * as {@code TokenSpan.value()} did, a {@code HashMap} that deduplicates those strings, and
+ * {@link NameInterner}, first on one thread and then shared by several.
+ *
+ * <p>The source is a run of identifiers drawn at random from a fixed vocabulary, like the
+ * few thousand names that make up a batch of files. Usage:
+ * {@code NameInternerBenchmark [identifiers] [vocabulary] [threads]}.
+ */
+public class NameInternerBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int identifiers = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int vocabulary = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        // identifiers separated by spaces, with the range of each recorded
+        Random random = new Random(42);
+        String[] words = new String[vocabulary];
+        for (int i = 0; i < vocabulary; i++) words[i] = "name" + Integer.toString(random.nextInt(), 36).replace('-', 'x');
+        StringBuilder text = new StringBuilder();
+        int[] starts = new int[identifiers];
+        int[] ends = new int[identifiers];
+        for (int i = 0; i < identifiers; i++) {
+            starts[i] = text.length();
+            text.append(words[random.nextInt(vocabulary)]);
+            ends[i] = text.length();
+            text.append(' ');
+        }
+        char[] chars = text.toString().toCharArray();
+        System.out.println("Input: " + identifiers + " identifiers from " + vocabulary + " names, " + threads + " threads");
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            checksum += strings(chars, starts, ends) + deduplicated(chars, starts, ends) + interned(new NameInterner(), chars, starts, ends);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += strings(chars, starts, ends);
+        report("new String", start, identifiers);
+
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += deduplicated(chars, starts, ends);
+        report("HashMap", start, identifiers);
+
+        // a warm pool, as it is after the first files of a batch
+        NameInterner names = new NameInterner();
+        interned(names, chars, starts, ends);
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += interned(names, chars, starts, ends);
+        report("NameInterner", start, identifiers);
+
+        // every thread interns every identifier into one cold pool
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            NameInterner shared = new NameInterner();
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) futures[t] = executor.submit(() -> interned(shared, chars, starts, ends));
+            for (Future<?> future : futures) checksum += (Long) future.get();
+        }
+        report("shared x" + threads, start, (long) identifiers * threads);
+        executor.shutdown();
+        System.out.println("checksum " + checksum);
+    }
+
+    private static long strings(char[] chars, int[] starts, int[] ends) {
+        long sum = 0;
+        for (int i = 0; i < starts.length; i++) sum += new String(chars, starts[i], ends[i] - starts[i]).hashCode();
+        return sum;
+    }
+
+    private static long deduplicated(char[] chars, int[] starts, int[] ends) {
+        Map<String, String> names = new HashMap<>();
+        long sum = 0;
+        for (int i = 0; i < starts.length; i++) {
+            String name = new String(chars, starts[i], ends[i] - starts[i]);
+            sum += System.identityHashCode(names.computeIfAbsent(name, n -> n));
+        }
+        return sum;
+    }
+
+    private static long interned(NameInterner names, char[] chars, int[] starts, int[] ends) {
+        long sum = 0;
+        for (int i = 0; i < starts.length; i++) sum += names.intern(chars, starts[i], ends[i]).id();
+        return sum;
+    }
+
+    private static void report(String name, long start, long identifiers) {
+        double nanos = (double) (System.nanoTime() - start) / RUNS / identifiers;
+        System.out.printf("%-14s %8.2f ns/identifier%n", name, nanos);
+    }
+}
@@ -0,0 +1,60 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.ParallelLexer;
+import com.viffx.Lang.Compiler.TokenTable;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares filling a {@link TokenTable} with a single {@link Lexer} against
+ * {@link ParallelLexer} on pools of increasing parallelism.
+ *
+ * <p>Usage: {@code ParallelLexerBenchmark [grammarFile] [sourceFile] [copies] [chunkSize]}. The
+ * source (default {@code CodeTest1.txt}) is repeated {@code copies} times.
+ */
+public class ParallelLexerBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int chunkSize = args.length > 3 ? Integer.parseInt(args[3]) : 1 << 18;
+
+        Grammar grammar = Grammar.load(grammarFile);
+        char[] input = String.join("\n", Collections.nCopies(copies, Files.readString(Path.of(sourceFile)))).toCharArray();
+        System.out.println("Input: " + input.length + " chars, " + Runtime.getRuntime().availableProcessors() + " cpus");
+
+        report("sequential", input, grammar, chunkSize, null);
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+                report("parallel (" + threads + ")", input, grammar, chunkSize, pool);
+            }
+        }
+    }
+
+    private static void report(String name, char[] input, Grammar grammar, int chunkSize, ForkJoinPool pool) throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) checksum += run(input, grammar, chunkSize, pool);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += run(input, grammar, chunkSize, pool);
+        double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        System.out.printf("%-16s %10.2f ms/run (checksum %d)%n", name, millis, checksum);
+    }
+
+    private static long run(char[] input, Grammar grammar, int chunkSize, ForkJoinPool pool) throws Exception {
+        TokenTable tokens = pool == null
+                ? TokenTable.tokenize(new Lexer(CharSource.of(input), grammar), grammar)
+                : ParallelLexer.tokenize(CharSource.of(input), grammar, chunkSize, pool);
+        return tokens.size();
+    }
+}
@@ -0,0 +1,111 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.LALR1ParseTableGenerator;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Grammar.GrammarBuilder;
+import com.viffx.Lang.Symbols.SymbolType;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Times {@link LALR1ParseTableGenerator#generate()} and records the memory it allocates and the peak heap it needs, on a
+ * grammar file and on synthetic grammars built with {@link GrammarBuilder}.
+ *
+ * <p>A synthetic grammar of size {@code n} has {@code n} statement kinds, each starting with its
+ * own keyword, over an expression grammar with {@code n} binary precedence levels, each with its
+ * own operator, so states, terminals and lookahead sets all grow with {@code n}.
+ *
+ * <p>Usage: {@code ParseTableGeneratorBenchmark [grammarFile] [sizes...]}, sizes default to 8, 16 and 32.
+ */
+public class ParseTableGeneratorBenchmark {
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        int[] sizes = {8, 16, 32};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        // loading prints its working, which would drown the results
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Grammar file = Grammar.load(grammarFile);
+        System.setOut(out);
+
+        System.out.printf("%-24s %8s %8s %12s %12s %12s%n", "grammar", "symbols", "states", "ms/generate", "alloc MB", "peak heap MB");
+        run(grammarFile.substring(grammarFile.lastIndexOf('/') + 1), file);
+        for (int size : sizes) run("synthetic " + size, synthetic(size));
+    }
+
+    private static void run(String name, Grammar grammar) {
+        long states = 0;
+        for (int i = 0; i < WARMUP; i++) states = new LALR1ParseTableGenerator(grammar, false).generate().size();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) states = new LALR1ParseTableGenerator(grammar, false).generate().size();
+        double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.gc();
+        resetPeaks();
+        long before = heapPeak();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        new LALR1ParseTableGenerator(grammar, false).generate();
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        double peak = (heapPeak() - before) / 1e6;
+
+        System.out.printf("%-24s %8d %8d %12.2f %12.1f %12.1f%n", name, grammar.symbolCount(), states, millis, allocated / 1e6, peak);
+    }
+
+    /**
+     * Builds the synthetic grammar of size {@code n}: statements of {@code n} kinds over
+     * expressions with {@code n} precedence levels.
+     *
+     * @param n the number of statement kinds and of precedence levels
+     * @return the grammar
+     */
+    public static Grammar synthetic(int n) {
+        GrammarBuilder builder = Grammar.builder();
+        int statements = builder.nonTerminal("statements");
+        int statement = builder.nonTerminal("statement");
+        int[] levels = new int[n + 1];
+        for (int i = 0; i <= n; i++) levels[i] = builder.nonTerminal("expression" + i);
+        int id = builder.terminal(SymbolType.ID, null);
+        int end = builder.terminal(SymbolType.SYM, ";");
+
+        builder.start(statements)
+               .production(statements, statement, end, statements)
+               .production(statements);
+        for (int i = 0; i < n; i++) {
+            builder.production(statement, builder.terminal(SymbolType.KEY, "keyword" + i), id, builder.terminal(SymbolType.SYM, "="), levels[0]);
+            builder.production(levels[i], levels[i], builder.terminal(SymbolType.SYM, "op" + i), levels[i + 1])
+                   .production(levels[i], levels[i + 1]);
+        }
+        builder.production(levels[n], builder.terminal(SymbolType.NUM, null))
+               .production(levels[n], id)
+               .production(levels[n], builder.terminal(SymbolType.SYM, "("), levels[0], builder.terminal(SymbolType.SYM, ")"));
+        return builder.build();
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    // the sum of the peaks of the heap pools since they were reset, an upper bound on the live heap
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,83 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.PipelinedLexer;
+import com.viffx.Lang.Compiler.TokenStream;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.Symbol;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+import com.viffx.Lang.Symbols.TokenSpan;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares consuming tokens from an inline {@link Lexer} against a {@link PipelinedLexer}
+ * running on a platform and on a virtual thread.
+ *
+ * <p>The consumer does what the generated {@code Compiler} does per token: it compares the
+ * token against the grammar's terminals with {@code equals} until one matches.
+ *
+ * <p>Usage: {@code PipelinedLexerBenchmark [grammarFile] [sourceFile] [copies]}. The source
+ * (default {@code CodeTest1.txt}) is repeated {@code copies} times.
+ */
+public class PipelinedLexerBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Grammar grammar = Grammar.load(grammarFile);
+        List<Terminal> terminals = new ArrayList<>();
+        grammar.forEachSymbol(symbol -> {
+            if (symbol instanceof Terminal t) terminals.add(new Terminal(t.type(), t.lexeme()));
+        });
+        char[] input = String.join("\n", Collections.nCopies(copies, Files.readString(Path.of(sourceFile)))).toCharArray();
+        System.out.println("Input: " + input.length + " chars");
+
+        report("inline", input, grammar, terminals, 0);
+        report("pipelined (platform)", input, grammar, terminals, 1);
+        report("pipelined (virtual)", input, grammar, terminals, 2);
+    }
+
+    private static void report(String name, char[] input, Grammar grammar, List<Terminal> terminals, int mode) throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) checksum += run(input, grammar, terminals, mode);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += run(input, grammar, terminals, mode);
+        double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        System.out.printf("%-22s %10.2f ms/run (checksum %d)%n", name, millis, checksum);
+    }
+
+    private static long run(char[] input, Grammar grammar, List<Terminal> terminals, int mode) throws Exception {
+        Lexer lexer = new Lexer(CharSource.of(input), grammar);
+        if (mode == 0) return consume(lexer, terminals);
+        try (PipelinedLexer pipelined = new PipelinedLexer(lexer, mode == 2)) {
+            return consume(pipelined, terminals);
+        }
+    }
+
+    private static long consume(TokenStream tokens, List<Terminal> terminals) throws Exception {
+        long checksum = 0;
+        for (TokenSpan token = tokens.next(); token.type() != SymbolType.EOF; token = tokens.next()) {
+            for (int i = 0; i < terminals.size(); i++) {
+                Symbol terminal = terminals.get(i);
+                if (token.equals(terminal)) {
+                    checksum += i;
+                    break;
+                }
+            }
+        }
+        return checksum;
+    }
+}
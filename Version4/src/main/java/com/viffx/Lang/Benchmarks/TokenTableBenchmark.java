@@ -0,0 +1,87 @@
+package com.viffx.Lang.Benchmarks;
+
+import com.viffx.Lang.Compiler.LALR1ParseTableGenerator;
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.TableDrivenParser;
+import com.viffx.Lang.Compiler.TokenTable;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.TokenSpan;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Times the lexing and parsing phases separately: pulling {@link TokenSpan}s one at a time
+ * from {@link Lexer#next()}, filling a {@link TokenTable} in one pass, and running the
+ * {@link TableDrivenParser} over the filled table.
+ *
+ * <p>Usage: {@code TokenTableBenchmark [grammarFile] [sourceFile] [copies]}. The lines of the
+ * source (default {@code CodeTest1.txt}) that the grammar accepts on their own are repeated
+ * {@code copies} times.
+ */
+public class TokenTableBenchmark {
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Grammar grammar = Grammar.load(grammarFile);
+        TableDrivenParser parser = new TableDrivenParser(grammar, new LALR1ParseTableGenerator(grammar).generate());
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(sourceFile))) {
+            if (!line.isBlank() && parses(line, grammar, parser)) lines.add(line);
+        }
+        char[] input = String.join("\n", Collections.nCopies(copies, String.join("\n", lines))).toCharArray();
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) checksum += stream(input, grammar) + table(input, grammar).size();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += stream(input, grammar);
+        double streaming = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        TokenTable tokens = null;
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += (tokens = table(input, grammar)).size();
+        double tokenizing = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        for (int i = 0; i < WARMUP; i++) checksum += parser.parse(tokens).children().size();
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) checksum += parser.parse(tokens).children().size();
+        double parsing = (System.nanoTime() - start) / 1e6 / RUNS;
+
+        System.out.printf("Input: %d chars, %d tokens%n", input.length, tokens.size());
+        System.out.printf("%-22s %10.2f ms/run%n", "Lexer.next()", streaming);
+        System.out.printf("%-22s %10.2f ms/run%n", "TokenTable.tokenize()", tokenizing);
+        System.out.printf("%-22s %10.2f ms/run%n", "TableDrivenParser", parsing);
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    private static boolean parses(String line, Grammar grammar, TableDrivenParser parser) {
+        try {
+            parser.parse(table(line.toCharArray(), grammar));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long stream(char[] input, Grammar grammar) throws Exception {
+        Lexer lexer = new Lexer(CharSource.of(input), grammar);
+        long tokens = 0;
+        for (TokenSpan token = lexer.next(); token.type() != SymbolType.EOF; token = lexer.next()) tokens++;
+        return tokens;
+    }
+
+    private static TokenTable table(char[] input, Grammar grammar) {
+        return TokenTable.tokenize(new Lexer(CharSource.of(input), grammar), grammar);
+    }
+}
@@ -0,0 +1,57 @@
+package com.viffx.Lang.Checks;
+
+import com.viffx.Lang.Compiler.IncrementalLexer;
+import com.viffx.Lang.Compiler.TokenTable;
+import com.viffx.Lang.Grammar.Grammar;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Checks that {@link IncrementalLexer} keeps the table {@link TokenTable#tokenize} gives for the
+ * whole text, over random edits.
+ *
+ * <p>Edits insert, delete and replace text made of the pieces the lexer treats specially: line
+ * breaks, block openers and closers, escapes, numbers, keywords and operators. Unclosed blocks
+ * make some edits fail to lex, and the check expects both lexers to fail the same way.
+ * Usage: {@code IncrementalLexerCheck [grammarFile] [sourceFile] [edits] [seed]}. Throws on the
+ * first edit after which the two disagree.
+ */
+public class IncrementalLexerCheck {
+    private static final String[] PIECES = {
+            "\n", "\n\n", " ", "  \n ", "\r\n", "\"", "'", "#", "\\", "\\\"", "\"a\\tb\"", "'x'", "#note#",
+            "12", "0x1F", "1e5", "99999999999999999999", "public", "var", "id", "=", "(", ")", ";", "block", "ab",
+    };
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int edits = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        Random random = new Random(args.length > 3 ? Long.parseLong(args[3]) : 42);
+
+        Grammar grammar = Grammar.load(grammarFile);
+        String text = Files.readString(Path.of(sourceFile));
+        IncrementalLexer document = new IncrementalLexer(grammar, text);
+        for (int i = 0; i < edits; i++) {
+            String before = document.text();
+            int offset = random.nextInt(before.length() + 1);
+            int removed = random.nextInt(4) == 0 ? random.nextInt(Math.min(before.length() - offset, 40) + 1) : 0;
+            String inserted = random.nextInt(4) == 0 ? "" : piece(random);
+            String after = before.substring(0, offset) + inserted + before.substring(offset + removed);
+
+            TokenTables.assertSame(() -> TokenTables.sequential(after, grammar), () -> document.edit(offset, removed, inserted),
+                    "edit " + i + " (" + offset + ", " + removed + ", \"" + inserted + "\")");
+            if (!document.text().equals(after)) throw new IllegalStateException("edit " + i + " left the wrong text");
+            // keep the document from drifting far from its original size
+            if (document.text().length() > 2 * text.length()) document.edit(0, document.text().length(), text);
+        }
+        System.out.println("OK: " + edits + " edits");
+    }
+
+    private static String piece(Random random) {
+        StringBuilder piece = new StringBuilder();
+        for (int n = 1 + random.nextInt(3); n > 0; n--) piece.append(PIECES[random.nextInt(PIECES.length)]);
+        return piece.toString();
+    }
+}
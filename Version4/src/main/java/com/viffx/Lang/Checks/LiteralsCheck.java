@@ -0,0 +1,75 @@
+package com.viffx.Lang.Checks;
+
+import com.viffx.Lang.Utils.Literals;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Checks {@link Literals} against the JDK's parsers on random number literals of every shape
+ * the lexer produces for a {@code NUM} token, and on a few edge cases.
+ *
+ * <p>Usage: {@code LiteralsCheck [inputs] [seed]}. Throws on the first literal the two disagree on.
+ */
+public class LiteralsCheck {
+    private static final List<String> EDGE_CASES = List.of(
+            "0", "9223372036854775807", "9223372036854775808", "123456789012345678901234567890",
+            "18446744073709551616L", "0xFFFFFFFFFFFFFFFF", "0b101", "16777217f", "9007199254740993",
+            "9007199254740993d", "1e22", "1e23", "3e10f", "1e39f", "1e309", "0e99999999999", "123d", "7F"
+    );
+    private static final String[] SUFFIXES = {"", "", "", "d", "D", "f", "F", "L", "l"};
+
+    public static void main(String[] args) {
+        int inputs = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 42);
+
+        for (String literal : EDGE_CASES) check(literal);
+        for (int i = 0; i < inputs; i++) check(randomLiteral(random));
+        System.out.println("OK: " + (EDGE_CASES.size() + inputs) + " literals");
+    }
+
+    // digits [(e|E) digits] [suffix], with up to 30 digits so some overflow a long
+    private static String randomLiteral(Random random) {
+        StringBuilder literal = new StringBuilder();
+        int digits = 1 + random.nextInt(random.nextBoolean() ? 8 : 30);
+        for (int i = 0; i < digits; i++) literal.append((char) ('0' + random.nextInt(10)));
+        String suffix = SUFFIXES[random.nextInt(SUFFIXES.length)];
+        if (!suffix.equalsIgnoreCase("L") && random.nextInt(3) == 0) {
+            literal.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(random.nextBoolean() ? 25 : 400));
+        }
+        return literal.append(suffix).toString();
+    }
+
+    private static void check(String literal) {
+        char[] chars = ("  " + literal + " ").toCharArray();
+        int from = 2, to = chars.length - 1;
+
+        String digits = literal.endsWith("L") || literal.endsWith("l") ? literal.substring(0, literal.length() - 1) : literal;
+        boolean hexOrBinary = digits.length() > 2 && (digits.charAt(1) == 'x' || digits.charAt(1) == 'b');
+        Long expectedLong = null;
+        try {
+            expectedLong = hexOrBinary ? Long.parseUnsignedLong(digits.substring(2), digits.charAt(1) == 'x' ? 16 : 2) : Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            // not an integer, or too large for a long
+        }
+        Long actualLong = null;
+        try {
+            actualLong = Literals.parseLong(chars, from, to);
+        } catch (NumberFormatException e) {
+            // as above
+        }
+        if (!Objects.equals(expectedLong, actualLong)) {
+            throw new IllegalStateException("parseLong(" + literal + ") is " + actualLong + ", expected " + expectedLong);
+        }
+
+        double expected;
+        if (hexOrBinary) expected = expectedLong;
+        else if (literal.endsWith("f") || literal.endsWith("F")) expected = Float.parseFloat(literal);
+        else expected = Double.parseDouble(digits);
+        double actual = Literals.parseDouble(chars, from, to);
+        if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+            throw new IllegalStateException("parseDouble(" + literal + ") is " + actual + ", expected " + expected);
+        }
+    }
+}
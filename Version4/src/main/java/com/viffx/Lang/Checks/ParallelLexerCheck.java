@@ -0,0 +1,60 @@
+package com.viffx.Lang.Checks;
+
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.ParallelLexer;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that {@link ParallelLexer} produces the table a single {@link Lexer} does, payloads
+ * included, on random sources cut into small chunks.
+ *
+ * <p>Sources mix lines of the sample file with line breaks, blocks that span lines, escapes and
+ * number literals, so cuts land next to every construct the pre-pass has to skip. Some sources
+ * have an unclosed block or a character no terminal starts with, and the check expects the
+ * parallel lexer to fail with the sequential one's error.
+ * Usage: {@code ParallelLexerCheck [grammarFile] [sourceFile] [sources] [seed]}. Throws on the
+ * first source the two disagree on.
+ */
+public class ParallelLexerCheck {
+    private static final String[] PIECES = {
+            "\n", "\n\n", " \n ", "\r\n", "\"a\\tb\\\"\"", "\"one\ntwo\"", "'x'", "'\\n'", "#note#", "#a\n\nb#",
+            "12", "0x1F", "1e5", "7f", "99999999999999999999", "12ab", " = ", "(", ")", ";",
+    };
+    private static final String[] ERRORS = {"\"", "'", "#", "\\"};
+
+    public static void main(String[] args) throws Exception {
+        String grammarFile = args.length > 0 ? args[0] : "src/main/resources/LangGrammar4.txt";
+        String sourceFile = args.length > 1 ? args[1] : "src/main/resources/CodeTest1.txt";
+        int sources = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        Random random = new Random(args.length > 3 ? Long.parseLong(args[3]) : 42);
+
+        Grammar grammar = Grammar.load(grammarFile);
+        String[] lines = Files.readString(Path.of(sourceFile)).split("\n");
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            for (int i = 0; i < sources; i++) {
+                String text = source(random, lines);
+                int chunkSize = 1 + random.nextInt(random.nextBoolean() ? 16 : 400);
+                TokenTables.assertSame(() -> TokenTables.sequential(text, grammar),
+                        () -> ParallelLexer.tokenize(CharSource.of(text.toCharArray()), grammar, chunkSize, pool),
+                        "source " + i + " in chunks of " + chunkSize);
+            }
+        }
+        System.out.println("OK: " + sources + " sources");
+    }
+
+    private static String source(Random random, String[] lines) {
+        StringBuilder text = new StringBuilder();
+        for (int n = random.nextInt(60); n > 0; n--) {
+            if (random.nextInt(3) == 0) text.append(PIECES[random.nextInt(PIECES.length)]);
+            else text.append(lines[random.nextInt(lines.length)]).append('\n');
+        }
+        if (random.nextInt(10) == 0) text.insert(random.nextInt(text.length() + 1), ERRORS[random.nextInt(ERRORS.length)]);
+        return text.toString();
+    }
+}
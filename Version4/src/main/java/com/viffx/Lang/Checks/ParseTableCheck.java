@@ -0,0 +1,95 @@
+package com.viffx.Lang.Checks;
+
+import com.viffx.Lang.Benchmarks.ParseTableGeneratorBenchmark;
+import com.viffx.Lang.Compiler.Action;
+import com.viffx.Lang.Compiler.ActionType;
+import com.viffx.Lang.Compiler.LALR1ParseTableGenerator;
+import com.viffx.Lang.Grammar.Grammar;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Checks that {@link LALR1ParseTableGenerator} still generates the tables the original fixed-point
+ * generator did, for the grammars in the resources and for small synthetic grammars.
+ *
+ * <p>The expected tables are in {@code ParseTables.txt}, written by the generator as it was before
+ * its rewrite. State numbers depend on the order states are found in, so both sides are dumped
+ * canonically: states are renumbered breadth first from state 0, following transitions in the
+ * order of their symbols' names, and each state lists its actions by symbol name with reductions
+ * written out as productions.
+ * Usage: {@code ParseTableCheck [expectedFile]}. Throws at the first line that differs.
+ */
+public class ParseTableCheck {
+    private static final String[] GRAMMARS = {
+            "src/main/resources/TestGrammar1.txt", "src/main/resources/TestGrammar2.txt", "src/main/resources/TestGrammar3.txt",
+            "src/main/resources/LangGrammar3.txt", "src/main/resources/LangGrammar4.txt",
+    };
+    private static final int[] SYNTHETIC_SIZES = {3, 8};
+
+    public static void main(String[] args) throws Exception {
+        String expectedFile = args.length > 0 ? args[0] : "src/main/resources/ParseTables.txt";
+
+        StringBuilder dump = new StringBuilder();
+        // loading prints its working, which would drown the result
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (String file : GRAMMARS) dump(dump, file, Grammar.load(file));
+        } finally {
+            System.setOut(out);
+        }
+        for (int size : SYNTHETIC_SIZES) dump(dump, String.valueOf(size), ParseTableGeneratorBenchmark.synthetic(size));
+
+        String[] expected = Files.readString(Path.of(expectedFile)).split("\n");
+        String[] actual = dump.toString().split("\n");
+        for (int i = 0; i < Math.max(expected.length, actual.length); i++) {
+            String want = i < expected.length ? expected[i] : "<end>", got = i < actual.length ? actual[i] : "<end>";
+            if (!want.equals(got)) {
+                throw new IllegalStateException("Line " + (i + 1) + " is\n  " + got + "\nexpected\n  " + want);
+            }
+        }
+        System.out.println("OK: " + (GRAMMARS.length + SYNTHETIC_SIZES.length) + " grammars");
+    }
+
+    private static void dump(StringBuilder dump, String name, Grammar grammar) {
+        List<HashMap<Integer, Action>> table = new LALR1ParseTableGenerator(grammar, false).generate();
+        dump.append("== ").append(name).append(" states=").append(table.size()).append('\n');
+
+        int[] renumbered = new int[table.size()];
+        Arrays.fill(renumbered, -1);
+        List<Integer> order = new ArrayList<>();
+        renumbered[0] = 0;
+        order.add(0);
+        for (int next = 0; next < order.size(); next++) {
+            TreeMap<String, Integer> transitions = new TreeMap<>();
+            table.get(order.get(next)).forEach((symbol, action) -> {
+                if (action.type() == ActionType.SHIFT || action.type() == ActionType.GOTO) {
+                    transitions.put(String.valueOf(grammar.symbol(symbol)), action.data());
+                }
+            });
+            for (int state : transitions.values()) {
+                if (renumbered[state] < 0) {
+                    renumbered[state] = order.size();
+                    order.add(state);
+                }
+            }
+        }
+
+        for (int state : order) {
+            TreeMap<String, String> actions = new TreeMap<>();
+            table.get(state).forEach((symbol, action) -> {
+                String data = switch (action.type()) {
+                    case REDUCE -> grammar.toString(grammar.production(action.data()));
+                    case ACCEPT -> "";
+                    case SHIFT, GOTO -> String.valueOf(renumbered[action.data()]);
+                };
+                actions.put(String.valueOf(grammar.symbol(symbol)), action.type() + " " + data);
+            });
+            dump.append(renumbered[state]).append(' ').append(actions).append('\n');
+        }
+    }
+}
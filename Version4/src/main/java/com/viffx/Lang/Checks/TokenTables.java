@@ -0,0 +1,59 @@
+package com.viffx.Lang.Checks;
+
+import com.viffx.Lang.Compiler.Lexer;
+import com.viffx.Lang.Compiler.TokenTable;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.Name;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+// Comparisons of token tables shared by the lexer checks
+final class TokenTables {
+    private TokenTables() {}
+
+    // The table a single Lexer produces for the whole of text, the reference every other lexer must match
+    static TokenTable sequential(CharSequence text, Grammar grammar) {
+        return TokenTable.tokenize(new Lexer(CharSource.of(text.toString()), grammar), grammar);
+    }
+
+    /* Lexes with both, and throws unless they fail with the same message or produce the same rows.
+     * Rows are the same when their terminal, type, position, text and decoded payload are.
+     */
+    static void assertSame(Supplier<TokenTable> expected, Supplier<TokenTable> actual, String context) {
+        TokenTable want, got;
+        try {
+            want = expected.get();
+        } catch (RuntimeException e) {
+            try {
+                actual.get();
+            } catch (RuntimeException f) {
+                if (Objects.equals(e.getMessage(), f.getMessage())) return;
+                throw new IllegalStateException(context + ": failed with \"" + f.getMessage() + "\", expected \"" + e.getMessage() + "\"", f);
+            }
+            throw new IllegalStateException(context + ": lexed, expected \"" + e.getMessage() + "\"");
+        }
+        try {
+            got = actual.get();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException(context + ": failed with \"" + e.getMessage() + "\", expected it to lex", e);
+        }
+
+        if (want.size() != got.size()) {
+            throw new IllegalStateException(context + ": " + got.size() + " tokens, expected " + want.size());
+        }
+        for (int i = 0; i < want.size(); i++) {
+            String row = describe(got, i), expectedRow = describe(want, i);
+            if (!row.equals(expectedRow)) {
+                throw new IllegalStateException(context + ": token " + i + " is " + row + ", expected " + expectedRow);
+            }
+        }
+    }
+
+    private static String describe(TokenTable table, int i) {
+        Name name = table.name(i);
+        return table.symbol(i) + " " + table.type(i) + " [" + table.start(i) + ", +" + table.length(i) + ") "
+                + table.text(i) + " " + table.payload(i) + " " + (name == null ? null : name.text());
+    }
+}
@@ -0,0 +1,102 @@
+package com.viffx.Lang.Compiler;
+
+/**
+ * The inner loops of the {@link Lexer}: bulk searches over a range of a character array.
+ *
+ * <p>Every method looks at {@code chars[from, to)} and returns the index of the first
+ * character that stops the search, or {@code to} if there is none. The searches only
+ * recognize ASCII characters; the lexer handles whatever character they stop on, so a
+ * non-ASCII letter or space simply ends a run early and is dealt with one character
+ * at a time.
+ *
+ * <p>Two implementations are provided: {@link #scalar()}, which checks one character
+ * per iteration, and {@link #vector()}, which classifies a whole {@code ShortVector}
+ * of characters (16 to 32 per iteration on current hardware) with the incubating
+ * {@code jdk.incubator.vector} API. {@link #best()} picks the vector implementation
+ * when the JVM was started with {@code --add-modules jdk.incubator.vector}.
+ */
+public interface CharScanner {
+    /**
+     * Skips ASCII whitespace ({@code ' '} and {@code '\t'} through {@code '\r'}).
+     *
+     * @param chars the characters to search
+     * @param from  the index to start at
+     * @param to    the index to stop at
+     * @return the index of the first character that is not ASCII whitespace, or {@code to}
+     */
+    int skipWhitespace(char[] chars, int from, int to);
+
+    /**
+     * Skips ASCII letters and digits.
+     *
+     * @param chars the characters to search
+     * @param from  the index to start at
+     * @param to    the index to stop at
+     * @return the index of the first character that is not an ASCII letter or digit, or {@code to}
+     */
+    int skipLettersOrDigits(char[] chars, int from, int to);
+
+    /**
+     * Finds the first occurrence of {@code c}.
+     *
+     * @param chars the characters to search
+     * @param from  the index to start at
+     * @param to    the index to stop at
+     * @param c     the character to find
+     * @return the index of the first {@code c}, or {@code to}
+     */
+    int indexOf(char[] chars, int from, int to, char c);
+
+    /**
+     * Finds the first occurrence of either {@code a} or {@code b}.
+     * Used to find the end of a block or the next escape inside it.
+     *
+     * @param chars the characters to search
+     * @param from  the index to start at
+     * @param to    the index to stop at
+     * @param a     the first character to find
+     * @param b     the second character to find
+     * @return the index of the first {@code a} or {@code b}, or {@code to}
+     */
+    int indexOfEither(char[] chars, int from, int to, char a, char b);
+
+    /**
+     * Returns the one character at a time implementation.
+     *
+     * @return the scalar scanner
+     */
+    static CharScanner scalar() {
+        return ScalarCharScanner.INSTANCE;
+    }
+
+    /**
+     * Returns the implementation built on {@code jdk.incubator.vector}.
+     *
+     * @return the vector scanner
+     * @throws UnsupportedOperationException if the {@code jdk.incubator.vector} module is not loaded
+     */
+    static CharScanner vector() {
+        if (!vectorSupported()) {
+            throw new UnsupportedOperationException("Start the JVM with --add-modules jdk.incubator.vector to use the vector scanner");
+        }
+        return VectorCharScanner.INSTANCE;
+    }
+
+    /**
+     * Returns the vector implementation if it is available, the scalar one otherwise.
+     *
+     * @return the fastest available scanner
+     */
+    static CharScanner best() {
+        return vectorSupported() ? vector() : scalar();
+    }
+
+    /**
+     * Returns {@code true} if the {@code jdk.incubator.vector} module is loaded.
+     *
+     * @return if {@link #vector()} can be used
+     */
+    static boolean vectorSupported() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
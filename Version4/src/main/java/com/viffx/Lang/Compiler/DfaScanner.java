@@ -0,0 +1,417 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.Character.isDigit;
+import static java.lang.Character.isLetter;
+
+/**
+ * A minimized, table-driven DFA that recognizes the lexemes of a grammar.
+ *
+ * <p>The automaton is generated from the terminals of a {@link Grammar}: every
+ * {@code SYM(...)} value becomes a literal, {@code STR}, {@code CHR} and comment
+ * blocks are recognized by their opening character, and identifiers (which cover
+ * {@code KEY(...)} values) and numbers are recognized by their usual shape:
+ * <pre>
+ *   ID  : letter (letter | digit)*
+ *   NUM : digit  (letter | digit)*
+ * </pre>
+ * The scanner is driven with maximal munch: the lexer feeds characters until
+ * {@link #next(int, char)} returns {@link #DEAD} and keeps the last accepting
+ * state it passed. When two patterns accept the same lexeme, literals win over
+ * identifiers and numbers.
+ *
+ * <p>Characters are first mapped to an equivalence class, then the transition is
+ * a single load from a flat {@code int[]} table indexed by
+ * {@code state * classCount + class}. ASCII characters are classified with a
+ * {@code byte[]} lookup; other characters fall back to a small sorted table and
+ * {@link Character#isLetter(char)}/{@link Character#isDigit(char)}.
+ *
+ * <p>Scanners are immutable. {@link #of(Grammar)} and {@link #legacy()} generate each one
+ * once per process and share it between every lexer that asks for it.
+ */
+public final class DfaScanner {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * Returned by {@link #next(int, char)} when no pattern can continue.
+     */
+    public static final int DEAD = -1;
+
+    // Fixed character classes, literal characters get classes of their own after these
+    private static final int OTHER = 0;
+    private static final int LETTER = 1;
+    private static final int DIGIT = 2;
+
+    // Characters of the hand written lexer's operator set. Used when no grammar is available.
+    private static final String LEGACY_SYMBOL_CHARS = "!()*+,-./:;<=>[]{|}";
+
+    private static final SymbolType[] SYMBOL_TYPES = SymbolType.values();
+
+    // The scanners of(Grammar) has generated, by the sorted operators they were generated from
+    private static final Map<List<String>, DfaScanner> BY_OPERATORS = new ConcurrentHashMap<>();
+    private static final DfaScanner LEGACY = new Generator(List.of(), LEGACY_SYMBOL_CHARS).generate();
+
+    // ====== TABLES ====== //
+    private final byte[] asciiClass;
+    private final char[] specialChars;
+    private final byte[] specialClass;
+    private final int classCount;
+    private final int[] transitions;
+    private final byte[] accept;
+    private final int start;
+    private final boolean[] wordLoop;
+
+    // ====== CONSTRUCTORS ====== //
+    private DfaScanner(byte[] asciiClass, char[] specialChars, byte[] specialClass, int classCount, int[] transitions, byte[] accept, int start) {
+        this.asciiClass = asciiClass;
+        this.specialChars = specialChars;
+        this.specialClass = specialClass;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.accept = accept;
+        this.start = start;
+
+        // States that stay put on every ASCII letter and digit, such as the identifier and number states
+        this.wordLoop = new boolean[accept.length];
+        for (int state = 0; state < accept.length; state++) {
+            boolean loops = true;
+            for (char c = 0; c < 128 && loops; c++) {
+                if (isAsciiLetterOrDigit(c)) loops = next(state, c) == state;
+            }
+            wordLoop[state] = loops;
+        }
+    }
+
+    /**
+     * Returns the scanner for the terminals of {@code grammar}, generating it the first time
+     * a grammar with these operators asks for one.
+     * <p>
+     * {@code SYM(...)} values made entirely of whitespace (such as {@code SYM(\n)}) are
+     * skipped, since the lexer produces those while skipping whitespace.
+     *
+     * @param grammar the grammar whose terminals are recognized
+     * @return the minimized scanner, shared with every other grammar that has the same operators
+     */
+    public static DfaScanner of(Grammar grammar) {
+        Set<String> operators = new TreeSet<>();
+        grammar.forEachSymbol(symbol -> {
+            if (symbol instanceof Terminal t && t.type() == SymbolType.SYM && t.value() != null && !t.lexeme().isBlank()) {
+                operators.add(t.lexeme());
+            }
+        });
+        return BY_OPERATORS.computeIfAbsent(List.copyOf(operators), DfaScanner::of);
+    }
+
+    /**
+     * Generates a scanner recognizing exactly the given operators as {@code SYM} tokens,
+     * together with identifiers, numbers and blocks.
+     *
+     * @param operators the operator lexemes
+     * @return the minimized scanner
+     */
+    public static DfaScanner of(Collection<String> operators) {
+        return new Generator(operators, "").generate();
+    }
+
+    /**
+     * Returns a scanner with the behaviour of the original hand written lexer, which
+     * glues every run of operator characters into one {@code SYM} token. Used by
+     * lexers that are only given a keyword set.
+     *
+     * @return the shared scanner
+     */
+    public static DfaScanner legacy() {
+        return LEGACY;
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns the start state.
+     *
+     * @return the start state
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Returns the state reached from {@code state} on {@code c}.
+     *
+     * @param state the current state
+     * @param c     the next character
+     * @return the next state, or {@link #DEAD}
+     */
+    public int next(int state, char c) {
+        return transitions[state * classCount + classOf(c)];
+    }
+
+    /**
+     * Returns the token type accepted in {@code state}.
+     * <p>
+     * {@code STR}, {@code CHR} and {@code COMMENT} are accepted right after the opening
+     * character of the block; the lexer scans the rest of the block itself.
+     *
+     * @param state a state of this scanner
+     * @return the accepted type, or {@code null} if the state is not accepting
+     */
+    public SymbolType accepted(int state) {
+        int type = accept[state];
+        return type < 0 ? null : SYMBOL_TYPES[type];
+    }
+
+    /**
+     * Returns {@code true} if {@code state} accepts a token.
+     *
+     * @param state a state of this scanner
+     * @return if the state is accepting
+     */
+    public boolean accepts(int state) {
+        return accept[state] >= 0;
+    }
+
+    /**
+     * Returns {@code true} if {@code state} loops back to itself on every ASCII letter
+     * and digit, so a run of them can be skipped without stepping the automaton.
+     *
+     * @param state a state of this scanner
+     * @return if the state loops on ASCII letters and digits
+     */
+    public boolean loopsOnLettersAndDigits(int state) {
+        return wordLoop[state];
+    }
+
+    /**
+     * Returns the number of states of the minimized automaton.
+     *
+     * @return the number of states
+     */
+    public int stateCount() {
+        return accept.length;
+    }
+
+    /**
+     * Returns the number of character classes.
+     *
+     * @return the number of character classes
+     */
+    public int classCount() {
+        return classCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DfaScanner{states=" + stateCount() + ", classes=" + classCount + ", table=" + transitions.length + " entries}";
+    }
+
+    private int classOf(char c) {
+        if (c < 128) return asciiClass[c];
+        int i = Arrays.binarySearch(specialChars, c);
+        if (i >= 0) return specialClass[i];
+        if (isLetter(c)) return LETTER;
+        if (isDigit(c)) return DIGIT;
+        return OTHER;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    // ====== GENERATION ====== //
+
+    /* Builds a small NFA over character classes, determinizes it with the subset
+     * construction and minimizes the result with Moore's partition refinement.
+     */
+    private static final class Generator {
+        // NFA states
+        private final List<Map<Integer, Integer>> literalEdges = new ArrayList<>(); // trie of literal lexemes
+        private final List<Integer> literalAccept = new ArrayList<>();
+        private final int identifier;
+        private final int number;
+        private final int run;
+        private final int nfaSize;
+
+        // character classes
+        private final Map<Character, Integer> charClasses = new TreeMap<>();
+        private final BitSet letterClasses = new BitSet();
+        private final BitSet digitClasses = new BitSet();
+        private final BitSet runClasses = new BitSet();
+        private int classCount = 3;
+
+        private Generator(Collection<String> operators, String runChars) {
+            letterClasses.set(LETTER);
+            digitClasses.set(DIGIT);
+
+            // trie root
+            literalEdges.add(new HashMap<>());
+            literalAccept.add(-1);
+            for (String operator : operators) addLiteral(operator, SymbolType.SYM);
+            addLiteral("\"", SymbolType.STR);
+            addLiteral("'", SymbolType.CHR);
+            addLiteral("#", SymbolType.COMMENT);
+            for (char c : runChars.toCharArray()) runClasses.set(classOf(c));
+
+            identifier = literalEdges.size();
+            number = identifier + 1;
+            run = identifier + 2;
+            nfaSize = identifier + 3;
+        }
+
+        private void addLiteral(String lexeme, SymbolType type) {
+            int node = 0;
+            for (char c : lexeme.toCharArray()) {
+                int cls = classOf(c);
+                Integer child = literalEdges.get(node).get(cls);
+                if (child == null) {
+                    child = literalEdges.size();
+                    literalEdges.add(new HashMap<>());
+                    literalAccept.add(-1);
+                    literalEdges.get(node).put(cls, child);
+                }
+                node = child;
+            }
+            literalAccept.set(node, type.ordinal());
+        }
+
+        // Gives every literal character a class of its own
+        private int classOf(char c) {
+            return charClasses.computeIfAbsent(c, _ -> {
+                int cls = classCount++;
+                if (isLetter(c)) letterClasses.set(cls);
+                if (isDigit(c)) digitClasses.set(cls);
+                return cls;
+            });
+        }
+
+        // The NFA states reachable from state on cls
+        private void move(int state, int cls, BitSet out) {
+            boolean letter = letterClasses.get(cls), digit = digitClasses.get(cls);
+            if (state < identifier) {
+                Integer child = literalEdges.get(state).get(cls);
+                if (child != null) out.set(child);
+                if (state == 0) {
+                    if (letter) out.set(identifier);
+                    else if (digit) out.set(number);
+                    if (runClasses.get(cls)) out.set(run);
+                }
+            } else if (state == identifier || state == number) {
+                if (letter || digit) out.set(state);
+            } else if (state == run) {
+                if (runClasses.get(cls)) out.set(run);
+            }
+        }
+
+        // Literals beat operator runs, which beat identifiers and numbers
+        private int acceptOf(BitSet states) {
+            for (int s = states.nextSetBit(0); s >= 0 && s < identifier; s = states.nextSetBit(s + 1)) {
+                if (literalAccept.get(s) >= 0) return literalAccept.get(s);
+            }
+            if (states.get(run)) return SymbolType.SYM.ordinal();
+            if (states.get(identifier)) return SymbolType.ID.ordinal();
+            if (states.get(number)) return SymbolType.NUM.ordinal();
+            return -1;
+        }
+
+        private DfaScanner generate() {
+            // ------ subset construction ------ //
+            Map<BitSet, Integer> ids = new HashMap<>();
+            List<BitSet> subsets = new ArrayList<>();
+            List<int[]> rows = new ArrayList<>();
+            BitSet initial = new BitSet(nfaSize);
+            initial.set(0);
+            ids.put(initial, 0);
+            subsets.add(initial);
+            for (int i = 0; i < subsets.size(); i++) {
+                BitSet subset = subsets.get(i);
+                int[] row = new int[classCount];
+                for (int cls = 0; cls < classCount; cls++) {
+                    BitSet target = new BitSet(nfaSize);
+                    for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) move(s, cls, target);
+                    if (target.isEmpty()) {
+                        row[cls] = DEAD;
+                        continue;
+                    }
+                    Integer id = ids.get(target);
+                    if (id == null) {
+                        id = subsets.size();
+                        ids.put(target, id);
+                        subsets.add(target);
+                    }
+                    row[cls] = id;
+                }
+                rows.add(row);
+            }
+            int[] dfaAccept = new int[subsets.size()];
+            for (int i = 0; i < subsets.size(); i++) dfaAccept[i] = acceptOf(subsets.get(i));
+
+            // ------ minimization ------ //
+            int[] block = minimize(rows, dfaAccept);
+            int blocks = 0;
+            for (int b : block) blocks = Math.max(blocks, b + 1);
+
+            int[] transitions = new int[blocks * classCount];
+            byte[] accept = new byte[blocks];
+            for (int s = 0; s < rows.size(); s++) {
+                int b = block[s];
+                accept[b] = (byte) dfaAccept[s];
+                for (int cls = 0; cls < classCount; cls++) {
+                    int target = rows.get(s)[cls];
+                    transitions[b * classCount + cls] = target == DEAD ? DEAD : block[target];
+                }
+            }
+
+            // ------ character class tables ------ //
+            byte[] asciiClass = new byte[128];
+            for (char c = 0; c < 128; c++) {
+                asciiClass[c] = (byte) (isLetter(c) ? LETTER : isDigit(c) ? DIGIT : OTHER);
+            }
+            List<Character> special = new ArrayList<>();
+            for (var entry : charClasses.entrySet()) {
+                char c = entry.getKey();
+                if (c < 128) asciiClass[c] = (byte) (int) entry.getValue();
+                else special.add(c);
+            }
+            char[] specialChars = new char[special.size()];
+            byte[] specialClass = new byte[special.size()];
+            for (int i = 0; i < specialChars.length; i++) {
+                specialChars[i] = special.get(i);
+                specialClass[i] = (byte) (int) charClasses.get(special.get(i));
+            }
+            if (classCount > Byte.MAX_VALUE) throw new IllegalStateException("Too many character classes: " + classCount);
+
+            return new DfaScanner(asciiClass, specialChars, specialClass, classCount, transitions, accept, block[0]);
+        }
+
+        // Moore's algorithm, returns the block of every state. The start state is always block 0.
+        private int[] minimize(List<int[]> rows, int[] dfaAccept) {
+            int n = rows.size();
+            int[] block = new int[n];
+            Map<Integer, Integer> initialBlocks = new HashMap<>();
+            initialBlocks.put(dfaAccept[0], 0);
+            for (int s = 0; s < n; s++) {
+                block[s] = initialBlocks.computeIfAbsent(dfaAccept[s], _ -> initialBlocks.size());
+            }
+            int count = initialBlocks.size();
+            while (true) {
+                Map<List<Integer>, Integer> signatures = new HashMap<>();
+                int[] refined = new int[n];
+                for (int s = 0; s < n; s++) {
+                    List<Integer> signature = new ArrayList<>(classCount + 1);
+                    signature.add(block[s]);
+                    for (int target : rows.get(s)) signature.add(target == DEAD ? DEAD : block[target]);
+                    if (s == 0) signatures.put(signature, 0);
+                    refined[s] = signatures.computeIfAbsent(signature, _ -> signatures.size());
+                }
+                block = refined;
+                if (signatures.size() == count) return block;
+                count = signatures.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.viffx.Lang.Compiler;
+
+/**
+ * The digraph traversal of DeRemer and Pennello, used by {@link LALR1ParseTableGenerator} to close
+ * sets over a relation: every node ends up with the union of its own set and the sets of every
+ * node it reaches.
+ *
+ * <p>It is Tarjan's strongly-connected-components algorithm with the unions folded in. Each edge
+ * is followed once, and the nodes of a component all reach each other, so the set its root has
+ * when the component is complete is the answer for all of them. The members share that one
+ * array, which must not be modified afterwards. The traversal keeps its own stack, so long chains
+ * of non-terminals cannot overflow the thread's.
+ */
+final class Digraph {
+    // ====== CONSTANTS ====== //
+    private static final int DONE = Integer.MAX_VALUE;
+
+    private Digraph() {}
+
+    /**
+     * Closes {@code sets} over {@code successors}, in place.
+     *
+     * @param successors the nodes each node is related to, null for indices that are not nodes
+     * @param sets       one or more sets per node, each closed independently, null where {@code successors} is
+     */
+    static void close(int[][] successors, long[][]... sets) {
+        int n = successors.length;
+        int[] low = new int[n];     // 0 until visited, then the lowest depth reached, DONE once its component is complete
+        int[] depth = new int[n];
+        int[] cursor = new int[n];  // the next successor to follow
+        int[] stack = new int[n];   // visited nodes whose component is not complete yet
+        int[] path = new int[n];    // the nodes being traversed, innermost last
+        int top = 0, calls = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (successors[root] == null || low[root] != 0) continue;
+            stack[top++] = root;
+            low[root] = depth[root] = top;
+            path[calls++] = root;
+
+            while (calls > 0) {
+                int x = path[calls - 1];
+                if (cursor[x] < successors[x].length) {
+                    int y = successors[x][cursor[x]++];
+                    if (successors[y] == null || y == x) continue;
+                    if (low[y] == 0) {
+                        stack[top++] = y;
+                        low[y] = depth[y] = top;
+                        path[calls++] = y;
+                        continue;
+                    }
+                    union(sets, x, y);
+                    low[x] = Math.min(low[x], low[y]);
+                    continue;
+                }
+
+                // every successor of x is done, so x is complete if it roots its component
+                calls--;
+                if (low[x] == depth[x]) {
+                    int z;
+                    do {
+                        z = stack[--top];
+                        low[z] = DONE;
+                        if (z != x) {
+                            for (long[][] set : sets) set[z] = set[x];
+                        }
+                    } while (z != x);
+                }
+                if (calls > 0) {
+                    int parent = path[calls - 1];
+                    union(sets, parent, x);
+                    low[parent] = Math.min(low[parent], low[x]);
+                }
+            }
+        }
+    }
+
+    private static void union(long[][][] sets, int into, int from) {
+        for (long[][] set : sets) SymbolSets.or(set[into], set[from]);
+    }
+}
@@ -0,0 +1,301 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+import com.viffx.Lang.Utils.CharWindow;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static com.viffx.Lang.Symbols.SymbolType.*;
+import static java.lang.Character.isWhitespace;
+
+/**
+ * Keeps the {@link TokenTable} of a document up to date as it is edited, re-lexing only
+ * around each edit.
+ *
+ * <p>For every line the lexer records a checkpoint: where the line starts and whether that
+ * point is inside a {@code "..."}, {@code '...'} or {@code #...#} block. A line start outside
+ * every block always follows the new line of a whitespace run whose {@code SYM(\n)} token has
+ * already been emitted, so lexing can restart there without looking at anything before it.
+ * <pre>
+ *   IncrementalLexer document = new IncrementalLexer(grammar, text);
+ *   TokenTable tokens = document.edit(offset, removed, inserted);
+ * </pre>
+ * An edit restarts the lexer at the last checkpoint outside a block before it, and stops at
+ * the first checkpoint past it where the new state matches the old one again; from there on
+ * the old tokens are reused, moved by the change in length. The tokens scanned therefore
+ * depend on the size of the edit (and of any block it opens or closes), not on the size of
+ * the document. The text, the token table and the checkpoints are updated in place, so all
+ * that is left proportional to the document is moving what follows the edit by one array
+ * copy per column.
+ *
+ * <p>The table is always identical to the one {@link TokenTable#tokenize} produces for the
+ * whole text. Since it is updated in place, a table returned before an edit must not be used
+ * after it. For grammars with operators containing whitespace, tokens may span
+ * lines, so every edit re-lexes the whole document.
+ */
+public final class IncrementalLexer {
+    // ====== CONSTANTS ====== //
+    private static final byte OUTSIDE = -1;
+    private static final SymbolType[] TYPES = SymbolType.values();
+
+    // ====== INSTANCE FIELDS ====== //
+    private final DfaScanner scanner;
+    private final CharScanner charScanner;
+    private final KeywordMatcher keywords;
+    private final TerminalIds ids;
+    private final int eof;
+    private final boolean checkpoints;
+
+    private char[] text;
+    private int length;
+    private TokenTable tokens;
+    private Lines lines;
+    private int relexed;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Lexes {@code text} in full.
+     *
+     * @param grammar the grammar whose terminals are recognized
+     * @param text    the initial text of the document
+     * @throws RuntimeException if the text cannot be lexed
+     */
+    public IncrementalLexer(Grammar grammar, CharSequence text) {
+        this.scanner = DfaScanner.of(grammar);
+        this.charScanner = CharScanner.best();
+        this.keywords = KeywordMatcher.of(grammar.getKeywords());
+        this.ids = new TerminalIds(grammar);
+        this.eof = grammar.EOF();
+        this.checkpoints = lineLocal(grammar);
+        this.text = text.toString().toCharArray();
+        this.length = this.text.length;
+        lexAll();
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Replaces {@code removed} characters at {@code offset} by {@code inserted} and updates the tokens.
+     * <p>
+     * If the new text cannot be lexed, the edit is still applied and the exception is thrown;
+     * the tokens are then rebuilt from scratch by the next call that needs them.
+     *
+     * @param offset   where the edit starts
+     * @param removed  the number of characters removed
+     * @param inserted the text inserted in their place
+     * @return the tokens of the new text
+     * @throws IndexOutOfBoundsException if the removed range is not inside the text
+     * @throws RuntimeException          if the new text cannot be lexed
+     */
+    public TokenTable edit(int offset, int removed, CharSequence inserted) {
+        Objects.checkFromIndexSize(offset, removed, length);
+        int resized = length - removed + inserted.length();
+        if (resized > text.length) text = Arrays.copyOf(text, Math.max(resized, text.length * 2));
+        System.arraycopy(text, offset + removed, text, offset + inserted.length(), length - offset - removed);
+        inserted.toString().getChars(0, inserted.length(), text, offset);
+        length = resized;
+
+        if (tokens == null || !checkpoints) lexAll();
+        else relex(offset, offset + inserted.length(), inserted.length() - removed);
+        return tokens;
+    }
+
+    /**
+     * Returns the tokens of the current text.
+     *
+     * @return the tokens
+     * @throws RuntimeException if the text cannot be lexed
+     */
+    public TokenTable tokens() {
+        if (tokens == null) lexAll();
+        return tokens;
+    }
+
+    /**
+     * Returns the current text.
+     *
+     * @return a copy of the text
+     */
+    public String text() {
+        return new String(text, 0, length);
+    }
+
+    /**
+     * Returns the number of lines of the current text.
+     *
+     * @return the number of line checkpoints
+     */
+    public int lineCount() {
+        tokens();
+        return lines.size;
+    }
+
+    /**
+     * Returns the offset of the first character of a line.
+     *
+     * @param line the zero based line
+     * @return its start offset
+     */
+    public int lineStart(int line) {
+        tokens();
+        Objects.checkIndex(line, lines.size);
+        return lines.starts[line];
+    }
+
+    /**
+     * Returns the type of the block a line starts in.
+     *
+     * @param line the zero based line
+     * @return {@code STR}, {@code CHR} or {@code COMMENT}, or {@code null} if the line starts outside every block
+     */
+    public SymbolType lineState(int line) {
+        tokens();
+        Objects.checkIndex(line, lines.size);
+        byte state = lines.states[line];
+        return state == OUTSIDE ? null : TYPES[state];
+    }
+
+    /**
+     * Returns the number of tokens the last edit scanned, comments included.
+     *
+     * @return the number of tokens re-lexed
+     */
+    public int relexedTokens() {
+        return relexed;
+    }
+
+    // ====== RE-LEXING ====== //
+    private void lexAll() {
+        TokenTable empty = new TokenTable();
+        empty.add(eof, EOF, null, 0, 0);
+        Lines first = new Lines();
+        first.add(0, OUTSIDE);
+        relex(empty, first, 0, 0, 0, false);
+    }
+
+    // Re-lexes after text[offset, editEnd) replaced a range that was delta characters shorter
+    private void relex(int offset, int editEnd, int delta) {
+        relex(tokens, lines, offset, editEnd, delta, true);
+    }
+
+    // Updates oldTokens and oldLines in place, which become the current tokens and lines unless the lexer fails
+    private void relex(TokenTable oldTokens, Lines oldLines, int offset, int editEnd, int delta, boolean resync) {
+        tokens = null;
+        lines = null;
+        relexed = 0;
+
+        // Restart at the last line that starts before the edit outside every block, the first line always does
+        int line = oldLines.lineOf(offset);
+        while (oldLines.states[line] != OUTSIDE) line--;
+        int from = oldLines.starts[line];
+
+        CharWindow window = new CharWindow(text, 0, length);
+        window.position(from);
+        Lexer lexer = new Lexer(window, scanner, charScanner, keywords);
+
+        TokenTable middle = new TokenTable();
+        Lines fresh = new Lines();
+        int resumeLine = -1;
+        int at = from;
+        scan:
+        while (true) {
+            SymbolType type = lexer.advance();
+            if (type == EOF) break;
+            relexed++;
+            int start = lexer.tokenStart(), end = lexer.tokenEnd(), pos = lexer.position();
+
+            // Past the first line, a leading new line belongs to the run whose SYM(\n) token precedes the checkpoint
+            boolean carried = at == from && from > 0 && type == SYM && text[start] == '\n';
+            if (type != COMMENT && !carried) middle.add(ids.exact(type, text, start, end), type, text, start, end - start);
+
+            // Checkpoint the lines that start in what this token covered
+            boolean block = type == STR || type == CHR || type == COMMENT;
+            for (int n = charScanner.indexOf(text, at, pos, '\n'); n < pos; n = charScanner.indexOf(text, n + 1, pos, '\n')) {
+                boolean inside = block && n >= start && n < end;
+                if (resync && !inside && n + 1 >= editEnd) {
+                    // Past the edit the text is unchanged, so the same state means the same tokens from here on
+                    int old = oldLines.indexOf(n + 1 - delta);
+                    if (old >= 0 && oldLines.states[old] == OUTSIDE) {
+                        resumeLine = old;
+                        break scan;
+                    }
+                }
+                fresh.add(n + 1, inside ? (byte) type.ordinal() : OUTSIDE);
+            }
+            at = pos;
+        }
+
+        // Without a match the rest of the old stream is replaced, down to its EOF row
+        int keep = oldTokens.firstAtOrAfter(from);
+        int resume = resumeLine < 0 ? oldTokens.size() - 1 : oldTokens.firstAtOrAfter(oldLines.starts[resumeLine]);
+        oldTokens.replace(keep, resume, middle, delta, new SourcePositions(text, 0, length));
+        oldLines.replace(line + 1, resumeLine < 0 ? oldLines.size : resumeLine, fresh, delta);
+        tokens = oldTokens;
+        lines = oldLines;
+    }
+
+    // Checkpoints only hold if no token but a block can run over a line break
+    private static boolean lineLocal(Grammar grammar) {
+        for (int i = 0; i < grammar.symbolCount(); i++) {
+            if (!(grammar.symbol(i) instanceof Terminal t) || t.type() != SYM || t.value() == null) continue;
+            String lexeme = t.lexeme();
+            if (lexeme.isBlank()) continue;
+            for (int j = 0; j < lexeme.length(); j++) {
+                if (isWhitespace(lexeme.charAt(j))) return false;
+            }
+        }
+        return true;
+    }
+
+    // ====== CHECKPOINTS ====== //
+
+    // Line starts in increasing order, with the block each one is inside of as a SymbolType ordinal or OUTSIDE
+    private static final class Lines {
+        private int[] starts = new int[64];
+        private byte[] states = new byte[64];
+        private int size;
+
+        private void add(int start, byte state) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                states = Arrays.copyOf(states, size * 2);
+            }
+            starts[size] = start;
+            states[size] = state;
+            size++;
+        }
+
+        // Returns the last line starting at or before offset
+        private int lineOf(int offset) {
+            int i = Arrays.binarySearch(starts, 0, size, offset);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        // Returns the line starting exactly at offset, or -1
+        private int indexOf(int offset) {
+            int i = Arrays.binarySearch(starts, 0, size, offset);
+            return i >= 0 ? i : -1;
+        }
+
+        // Replaces lines [from, to) in place by the lines of middle and moves the starts of the lines after them by delta
+        private void replace(int from, int to, Lines middle, int delta) {
+            int tail = size - to;
+            int resized = from + middle.size + tail;
+            if (resized > starts.length) {
+                starts = Arrays.copyOf(starts, Math.max(resized, starts.length * 2));
+                states = Arrays.copyOf(states, starts.length);
+            }
+            int moved = from + middle.size;
+            System.arraycopy(starts, to, starts, moved, tail);
+            System.arraycopy(states, to, states, moved, tail);
+            for (int i = moved; i < resized; i++) starts[i] += delta;
+            System.arraycopy(middle.starts, 0, starts, from, middle.size);
+            System.arraycopy(middle.states, 0, states, from, middle.size);
+            size = resized;
+        }
+    }
+}
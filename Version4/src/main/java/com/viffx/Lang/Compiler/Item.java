@@ -1,11 +1,46 @@
 package com.viffx.Lang.Compiler;
 
 public record Item(int index, int dot, Integer lookahead) {
+    // ====== PACKED ITEMS ====== //
+    // LALR1ParseTableGenerator keeps items as a single long: the production in the high 32 bits, then the dot and
+    // the lookahead plus one in 16 bits each, so a missing lookahead is 0 and longs order like (index, dot, lookahead)
+    private static final int FIELD_BITS = 16;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+
     public Item core() {
         return new Item(index,dot,null);
     }
     public Item advance() {
         return new Item(index,dot + 1, lookahead);
     }
-}
 
+    // The packed form of this item
+    long pack() {
+        return pack(index, dot, lookahead == null ? -1 : lookahead);
+    }
+
+    // lookahead is -1 for none
+    static long pack(int index, int dot, int lookahead) {
+        if (dot < 0 || dot >= FIELD_MASK || lookahead < -1 || lookahead >= FIELD_MASK) {
+            throw new IllegalArgumentException("Item (" + index + ", " + dot + ", " + lookahead + ") does not fit in a packed item");
+        }
+        return (long) index << 32 | (long) dot << FIELD_BITS | lookahead + 1;
+    }
+    static Item unpack(long item) {
+        int lookahead = lookahead(item);
+        return new Item(index(item), dot(item), lookahead < 0 ? null : lookahead);
+    }
+    static int index(long item) {
+        return (int) (item >>> 32);
+    }
+    static int dot(long item) {
+        return (int) (item >>> FIELD_BITS & FIELD_MASK);
+    }
+    static int lookahead(long item) {
+        return (int) (item & FIELD_MASK) - 1;
+    }
+    // The item with the dot one symbol further on
+    static long advance(long item) {
+        return item + (1L << FIELD_BITS);
+    }
+}
@@ -0,0 +1,62 @@
+package com.viffx.Lang.Compiler;
+
+import java.util.Arrays;
+
+/**
+ * The kernel of an LR state for {@link LALR1ParseTableGenerator}: its items, packed as in
+ * {@link Item#pack(int, int, int)}, sorted and without duplicates, so two kernels are equal
+ * exactly when their arrays are.
+ *
+ * <p>A 64-bit fingerprint of the items is computed once, when the kernel is made.
+ * {@link StateTable} hashes and compares by it first, and only compares the items when the
+ * fingerprints are equal. Instances are immutable.
+ */
+final class Kernel {
+    // ====== INSTANCE FIELDS ====== //
+    private final long[] items;
+    private final long fingerprint;
+
+    // ====== CONSTRUCTORS ====== //
+    private Kernel(long[] items) {
+        this.items = items;
+        long hash = items.length;
+        for (long item : items) hash = mix(hash * 0x9E3779B97F4A7C15L + item);
+        this.fingerprint = hash;
+    }
+
+    // The kernel of the first length packed items, which may be unsorted and repeat
+    static Kernel of(long[] items, int length) {
+        long[] sorted = Arrays.copyOf(items, length);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || sorted[distinct - 1] != sorted[i]) sorted[distinct++] = sorted[i];
+        }
+        return new Kernel(distinct == length ? sorted : Arrays.copyOf(sorted, distinct));
+    }
+
+    // ====== ACCESSORS ====== //
+    int size() {
+        return items.length;
+    }
+    long item(int i) {
+        return items[i];
+    }
+    long fingerprint() {
+        return fingerprint;
+    }
+    boolean sameItems(Kernel other) {
+        return fingerprint == other.fingerprint && Arrays.equals(items, other.items);
+    }
+
+    // ====== HELPERS ====== //
+
+    // The finalizer of MurmurHash3, so every bit of the items affects every bit of the fingerprint
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85EC3L;
+        return hash ^ hash >>> 33;
+    }
+}
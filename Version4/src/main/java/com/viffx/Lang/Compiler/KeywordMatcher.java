@@ -0,0 +1,165 @@
+package com.viffx.Lang.Compiler;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * A collision-free hash table of keywords, generated from a grammar's keyword set.
+ *
+ * <p>The matcher classifies a candidate word straight out of a character array:
+ * the word is hashed in place, the single slot it can occupy is checked, and at
+ * most one keyword is compared against it. No string is built and no probing is
+ * needed, because the seed of the hash is searched for at construction time so that
+ * every keyword lands in its own slot.
+ *
+ * <p>The search doubles the table while no seed works, up to {@code 2^20} slots. A set
+ * that still collides there gets a half full table with linear probing instead, where a
+ * lookup may check a few slots.
+ *
+ * <pre>
+ *   KeywordMatcher keywords = KeywordMatcher.of(grammar.getKeywords());
+ *   int keyword = keywords.match(chars, from, to); // -1 if chars[from, to) is not a keyword
+ * </pre>
+ */
+public final class KeywordMatcher {
+    // ====== CONSTANTS ====== //
+    private static final int FNV_PRIME = 0x01000193;
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int SEED_ATTEMPTS = 64;
+    // The largest collision-free table searched for, and the largest table a keyword set can get at all
+    private static final int MAX_COLLISION_FREE_SIZE = 1 << 20;
+    private static final int MAX_SIZE = 1 << 30;
+
+    // ====== INSTANCE FIELDS ====== //
+    private final String[] keywords;
+    private final char[][] slots;
+    private final int[] slotKeyword;
+    private final int mask;
+    private final int seed;
+    private final int minLength;
+    private final int maxLength;
+    private final boolean probing;
+
+    // ====== CONSTRUCTORS ====== //
+    private KeywordMatcher(String[] keywords, char[][] slots, int[] slotKeyword, int seed, boolean probing) {
+        this.keywords = keywords;
+        this.probing = probing;
+        this.slots = slots;
+        this.slotKeyword = slotKeyword;
+        this.mask = slots.length - 1;
+        this.seed = seed;
+
+        int min = Integer.MAX_VALUE, max = 0;
+        for (String keyword : keywords) {
+            min = Math.min(min, keyword.length());
+            max = Math.max(max, keyword.length());
+        }
+        this.minLength = min;
+        this.maxLength = max;
+    }
+
+    /**
+     * Generates a matcher for the given keywords.
+     * <p>
+     * Keywords are numbered in sorted order, so the ids are stable for a given set.
+     *
+     * @param keywords the keywords to recognize
+     * @return a matcher recognizing exactly {@code keywords}
+     * @throws IllegalArgumentException if there are more than {@code 2^29} keywords
+     */
+    public static KeywordMatcher of(Set<String> keywords) {
+        String[] sorted = keywords.toArray(String[]::new);
+        Arrays.sort(sorted);
+        if (sorted.length > MAX_SIZE / 2) throw new IllegalArgumentException("Too many keywords: " + sorted.length);
+
+        // The table is kept at most half full so a collision-free seed is found quickly
+        int smallest = Integer.highestOneBit(Math.max(1, sorted.length * 2 - 1)) << 1;
+        for (int size = smallest; size <= MAX_COLLISION_FREE_SIZE; size <<= 1) {
+            for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+                int seed = FNV_OFFSET + attempt * 0x9E3779B9;
+                KeywordMatcher matcher = tryBuild(sorted, size, seed, false);
+                if (matcher != null) return matcher;
+            }
+        }
+        return tryBuild(sorted, smallest, FNV_OFFSET, true);
+    }
+
+    // Returns null if two keywords collide under seed, unless probing moves the later one to the next free slot
+    private static KeywordMatcher tryBuild(String[] keywords, int size, int seed, boolean probing) {
+        char[][] slots = new char[size][];
+        int[] slotKeyword = new int[size];
+        for (int i = 0; i < keywords.length; i++) {
+            char[] keyword = keywords[i].toCharArray();
+            int slot = hash(keyword, 0, keyword.length, seed) & (size - 1);
+            while (slots[slot] != null) {
+                if (!probing) return null;
+                slot = (slot + 1) & (size - 1);
+            }
+            slots[slot] = keyword;
+            slotKeyword[slot] = i;
+        }
+        return new KeywordMatcher(keywords, slots, slotKeyword, seed, probing);
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Classifies {@code chars[from, to)}.
+     *
+     * @param chars the array holding the candidate word
+     * @param from  the index of the first character of the word
+     * @param to    the index one past the last character of the word
+     * @return the id of the keyword, or {@code -1} if the word is not a keyword
+     */
+    public int match(char[] chars, int from, int to) {
+        int length = to - from;
+        if (length < minLength || length > maxLength) return -1;
+
+        for (int slot = hash(chars, from, to, seed) & mask; ; slot = (slot + 1) & mask) {
+            char[] keyword = slots[slot];
+            if (keyword == null) return -1;
+            if (Arrays.equals(keyword, 0, keyword.length, chars, from, to)) return slotKeyword[slot];
+            if (!probing) return -1;
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code chars[from, to)} is a keyword.
+     *
+     * @param chars the array holding the candidate word
+     * @param from  the index of the first character of the word
+     * @param to    the index one past the last character of the word
+     * @return if the word is a keyword
+     */
+    public boolean isKeyword(char[] chars, int from, int to) {
+        return match(chars, from, to) >= 0;
+    }
+
+    /**
+     * Returns the keyword with the given id.
+     *
+     * @param id an id returned by {@link #match(char[], int, int)}
+     * @return the keyword
+     */
+    public String keyword(int id) {
+        return keywords[id];
+    }
+
+    /**
+     * Returns the number of keywords recognized.
+     *
+     * @return the number of keywords
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    // ====== HASHING ====== //
+    private static int hash(char[] chars, int from, int to, int seed) {
+        int h = seed ^ (to - from);
+        for (int i = from; i < to; i++) {
+            h = (h ^ chars[i]) * FNV_PRIME;
+        }
+        return h ^ (h >>> 15);
+    }
+}
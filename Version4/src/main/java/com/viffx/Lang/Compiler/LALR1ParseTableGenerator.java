@@ -1,8 +1,7 @@
 package com.viffx.Lang.Compiler;
 
 import com.viffx.Lang.Grammar.Grammar;
-import com.viffx.Lang.Grammar.Production;
-import com.viffx.Lang.Symbols.NonTerminal;
+import com.viffx.Lang.Grammar.Productions;
 import com.viffx.Lang.Symbols.Symbol;
 
 import java.util.*;
@@ -11,18 +10,42 @@ import java.util.stream.Collectors;
 public class LALR1ParseTableGenerator {
     //[INSTANCE_FIELDS]
     private final Grammar grammar;
-    private final HashMap<Integer,Set<Integer>> derivations;
-    private final HashMap<Integer,Set<Integer>> firstSets;
-    private final Set<Integer> nullable;
+    private final Productions productions;
+    // By non-terminal, null for terminals: the non-terminals it derives at its left edge, and its FIRST set
+    private final long[][] derivations;
+    private final long[][] firstSets;
+    private final long[] nullable;
+    // Every lookahead set is hash-consed here, see SymbolSets
+    private final SymbolSets sets;
+    // By item position, see position(): FIRST of the rest of the production after the dot, without EPSILON, and if that rest is nullable
+    private final long[][] suffixFirst;
+    private final long[] suffixNullable;
+    // By item position, the closure of each kernel item the first time a state has it
+    private final Closure[] closures;
+    // actions generate() overwrote with a different one, each a shift/reduce or reduce/reduce conflict
+    private int conflicts;
+    // if every set, state, closure and action is printed as it is computed
+    private final boolean debug;
     //[CONSTRUCTORS]
     public LALR1ParseTableGenerator(Grammar grammar) {
+        this(grammar, true);
+    }
+    /**
+     * Creates a generator that prints its working to {@code System.out} only if {@code debug} is set.
+     *
+     * @param grammar the grammar to generate a table for
+     * @param debug   if the sets, states, closures and actions are printed as they are computed
+     */
+    public LALR1ParseTableGenerator(Grammar grammar, boolean debug) {
         this.grammar = grammar;
+        this.debug = debug;
+        this.productions = grammar.productions();
+        this.sets = new SymbolSets(grammar.symbolCount());
 
-        HashMap<Integer,Set<Integer>> derivations = new HashMap<>(grammar.symbolCount());
-        HashMap<Integer,Set<Integer>> firstSets = new HashMap<>(grammar.symbolCount());
-        Set<Integer> nullable = new HashSet<>();
+        long[][] derivations = new long[grammar.symbolCount()][];
+        long[][] firstSets = new long[grammar.symbolCount()][];
+        long[] nullable = nullable();
         final int productionsCount = grammar.productionsCount();
-        int[] dots = new int[productionsCount];
         final int EPSILON = grammar.EPSILON();
 
         // Advance the dots over all nullable non-terminals
@@ -34,89 +57,90 @@ public class LALR1ParseTableGenerator {
         // A > * EPSILON();
         // B > * D
         // C > * c;
-        boolean change;
-        do {
-            change = false;
-            for (int i = 0; i < productionsCount; i++) {
-                Production production = grammar.production(i);
-                if (production.atEnd(dots[i])) {
-                    change |= nullable.add(production.lhs());
-                    continue;
-                }
-                while (!production.atEnd(dots[i]) && (production.get(dots[i]) == EPSILON || nullable.contains(production.get(dots[i])))) {
-                    dots[i]++;
-                    change = true;
-                }
+        int[] dots = new int[productionsCount];
+        for (int i = 0; i < productionsCount; i++) {
+            int length = productions.length(i);
+            while (dots[i] < length && (productions.symbolAt(i, dots[i]) == EPSILON || SymbolSets.contains(nullable, productions.symbolAt(i, dots[i])))) {
+                dots[i]++;
             }
-        } while (change);
+        }
 
-        // Initialize all the derivations
+        // Initialize all the derivations, and the non-terminals each one derives directly at its left edge
+        List<List<Integer>> direct = new ArrayList<>(grammar.symbolCount());
+        for (int i = 0; i < grammar.symbolCount(); i++) direct.add(null);
         for (int i = 0; i < productionsCount; i++) {
-            Production production = grammar.production(i);
-            int lhs = production.lhs();
-            Set<Integer> reachable = derivations.computeIfAbsent(lhs, _ -> new HashSet<>());
+            int lhs = productions.lhs(i);
+            boolean atEnd = dots[i] >= productions.length(i);
+            if (derivations[lhs] == null) {
+                derivations[lhs] = sets.create();
+                direct.set(lhs, new ArrayList<>());
+            }
+            long[] reachable = derivations[lhs];
 
             // All the non-terminals before the dot are reachable from lhs to epsilon transitions
-            reachable.add(production.lhs());
-            for (int j = 0; j < dots[i]; j++) {
-                reachable.add(production.get(j));
-            }
-            if (!production.atEnd(dots[i]) && grammar.isNonTerminal(production.get(dots[i]))) {
-                reachable.add(production.get(dots[i]));
+            SymbolSets.add(reachable, lhs);
+            int reached = !atEnd && grammar.isNonTerminal(productions.symbolAt(i, dots[i])) ? dots[i] + 1 : dots[i];
+            for (int j = 0; j < reached; j++) {
+                int symbol = productions.symbolAt(i, j);
+                if (SymbolSets.add(reachable, symbol) && grammar.isNonTerminal(symbol)) direct.get(lhs).add(symbol);
             }
 
             // first sets
             // after the dot the production must either be at the end or in front of a terminal
 
-            Set<Integer> firstSet = firstSets.computeIfAbsent(lhs, _ -> new HashSet<>());
-            if (production.atEnd(dots[i])) continue;
-            Integer symbol = production.get(dots[i]);
+            if (firstSets[lhs] == null) firstSets[lhs] = sets.create();
+            if (atEnd) continue;
+            int symbol = productions.symbolAt(i, dots[i]);
             if (grammar.isNonTerminal(symbol)) continue;
-            firstSet.add(symbol);
+            SymbolSets.add(firstSets[lhs], symbol);
         }
 
-        // Propagate reachability
-        do {
-            change = false;
-            for (int sourceNonTerminal : derivations.keySet()) {
-                Set<Integer> derivationsOfSource = derivations.get(sourceNonTerminal);
-                // Create a copy of the set to iterate over to prevent ConcurrentModificationException
-                List<Integer> currentDerivations = new ArrayList<>(derivationsOfSource);
-                for (int targetNonTerminal : currentDerivations) {
-                    if (sourceNonTerminal == targetNonTerminal) continue;
-                    Set<Integer> derivationsOfTarget = derivations.get(targetNonTerminal);
-                    assert derivationsOfTarget != null;
-                    change |= derivationsOfSource.addAll(derivationsOfTarget);
-                    firstSets.get(sourceNonTerminal).addAll(firstSets.get(targetNonTerminal));
-                }
-            }
-        } while (change);
-
-        System.out.println(derivations
-                .keySet()
-                .stream()
-                .map(
-                        key -> grammar.symbol(key) + " => " +
-                                derivations.get(key)
-                                        .stream()
-                                        .map(grammar::symbol)
-                                        .toList()
-                ).collect(Collectors.joining("\n")));
-        System.out.println(firstSets
-                .keySet()
-                .stream()
-                .map(
-                        key -> grammar.symbol(key) + " => " +
-                                firstSets.get(key)
-                                        .stream()
-                                        .map(grammar::symbol)
-                                        .toList()
-                ).collect(Collectors.joining("\n")));
+        // Close both over the derives-first relation in one traversal, each strongly connected component once
+        int[][] successors = new int[direct.size()][];
+        for (int i = 0; i < successors.length; i++) {
+            if (direct.get(i) != null) successors[i] = direct.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        Digraph.close(successors, derivations, firstSets);
+
+        if (debug) {
+            System.out.println(printSets(derivations));
+            System.out.println(printSets(firstSets));
+        }
 //        System.out.println("FENCE1");
 
         this.derivations = derivations;
         this.firstSets = firstSets;
         this.nullable = nullable;
+
+        // FIRST of every suffix, from the end of each production back to its start
+        int positions = productions.end(productionsCount - 1) + productionsCount;
+        this.suffixFirst = new long[positions][];
+        this.suffixNullable = new long[(positions + 63) >>> 6];
+        for (int i = 0; i < productionsCount; i++) {
+            int length = productions.length(i);
+            long[] suffix = sets.empty();
+            boolean suffixIsNullable = true;
+            suffixFirst[position(i, length)] = suffix;
+            SymbolSets.add(suffixNullable, position(i, length));
+            for (int dot = length - 1; dot >= 0; dot--) {
+                int symbol = productions.symbolAt(i, dot);
+                boolean symbolIsNullable = symbol == EPSILON || SymbolSets.contains(nullable, symbol);
+                long[] terminals = sets.create();
+                if (grammar.isNonTerminal(symbol)) {
+                    SymbolSets.or(terminals, firstSets[symbol]);
+                } else {
+                    SymbolSets.add(terminals, symbol);
+                }
+                if (symbolIsNullable) SymbolSets.or(terminals, suffix);
+                terminals[EPSILON >>> 6] &= ~(1L << EPSILON);
+                suffix = sets.intern(terminals);
+                suffixIsNullable &= symbolIsNullable;
+
+                suffixFirst[position(i, dot)] = suffix;
+                if (suffixIsNullable) SymbolSets.add(suffixNullable, position(i, dot));
+            }
+        }
+        this.closures = new Closure[positions];
     }
 
     //[INTERNAL_DATATYPES]
@@ -131,74 +155,157 @@ public class LALR1ParseTableGenerator {
         }
     }
 
-    //[PRIVATE_METHODS]
-    private Set<Integer> first(List<Integer> symbols) {
-        if (symbols == null || symbols.isEmpty()) return Set.of(grammar.EPSILON());
-        Set<Integer> terminals = new HashSet<>();
-
-        boolean nullable;
-        for (int i = 0; i < symbols.size(); i++) {
-            int I = symbols.get(i);
-            Symbol X = grammar.symbol(I);
-            if (X == null) continue;
-            Set<Integer> first = new HashSet<>();
-            if (X instanceof NonTerminal _) {
-                first.addAll(firstSets.get(I));
-                nullable = this.nullable.contains(I);
-            } else {
-                first.add(I);
-                nullable = I == grammar.EPSILON();
+    // The closure of one kernel item: each item in it, that item with the dot advanced, if the kernel item's lookaheads
+    // reach it, and the lookaheads it generates itself, or null for none
+    private final class Closure {
+        private final Item[] items;
+        private final Item[] advanced;
+        private final boolean[] propagates;
+        private final long[][] generated;
+
+        Closure(Item[] items, Item[] advanced, boolean[] propagates, long[][] generated) {
+            this.items = items;
+            this.advanced = advanced;
+            this.propagates = propagates;
+            this.generated = generated;
+        }
+
+        @Override
+        public String toString() {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < items.length; i++) {
+                List<Symbol> lookaheads = generated[i] == null ? new ArrayList<>() : symbols(generated[i]);
+                if (propagates[i]) lookaheads.add(grammar.symbol(grammar.TEST()));
+                lines.add(grammar.toString(items[i]) + " " + lookaheads);
             }
-            first.remove(grammar.EPSILON());
-            terminals.addAll(first);
-            if (nullable) {
-                if (i + 1 == symbols.size()) terminals.add(grammar.EPSILON());
-                continue;
+            return String.join("\n\t", lines);
+        }
+    }
+
+    // The kernel items of the successors of one state, by the symbol shifted to reach each, reused from state to state
+    private final class Successors {
+        private final long[][] items;
+        private final int[] sizes;
+
+        Successors(int symbolCount) {
+            items = new long[symbolCount][];
+            sizes = new int[symbolCount];
+        }
+
+        void add(int symbol, long item) {
+            long[] buffer = items[symbol];
+            if (buffer == null) {
+                buffer = items[symbol] = new long[4];
+            } else if (sizes[symbol] == buffer.length) {
+                buffer = items[symbol] = Arrays.copyOf(buffer, buffer.length * 2);
             }
-            break;
+            buffer[sizes[symbol]++] = item;
         }
 
-        return terminals;
-    }
-    private Set<Item> closure(Set<Item> I) {
-        Set<Item> J = new LinkedHashSet<>(I);
-        Queue<Item> queue = new LinkedList<>(I);
-        while (!queue.isEmpty()) {
-            Item item = queue.poll();
+        // The kernel reached on symbol, or null if there is none, emptying its buffer for the next state
+        Kernel take(int symbol) {
+            if (sizes[symbol] == 0) return null;
+            Kernel kernel = Kernel.of(items[symbol], sizes[symbol]);
+            sizes[symbol] = 0;
+            return kernel;
+        }
 
-            if (grammar.atEnd(item)) continue;
+        @Override
+        public String toString() {
+            List<String> lines = new ArrayList<>();
+            for (int symbol = 0; symbol < sizes.length; symbol++) {
+                if (sizes[symbol] == 0) continue;
+                Set<String> targets = new LinkedHashSet<>();
+                for (int i = 0; i < sizes[symbol]; i++) targets.add(grammar.toString(Item.unpack(items[symbol][i])));
+                lines.add(grammar.symbol(symbol) + " -> " + targets);
+            }
+            return String.join("\n\t\t\t", lines);
+        }
+    }
 
-            Integer B = grammar.symbol(item);
+    //[PRIVATE_METHODS]
+    // The nullable non-terminals, in time linear in the size of the grammar:
+    // each production counts the symbols not yet known to be nullable, and a non-terminal is nullable once one of its counts reaches 0
+    private long[] nullable() {
+        final int productionsCount = productions.count();
+        final int EPSILON = grammar.EPSILON();
+        long[] nullable = sets.create();
 
-            if (grammar.isNonTerminal(B)) {
-                // Step 1: Get beta (symbols after B in the current production)
-                // Step 1: Get beta (symbols after B in the current production)
-                List<Integer> beta = grammar.beta(item);   // β
+        // the productions each non-terminal occurs in, once per occurrence
+        int[] starts = new int[grammar.symbolCount() + 1];
+        for (int i = 0; i < productionsCount; i++) {
+            for (int k = productions.offset(i, 0); k < productions.end(i); k++) starts[productions.symbol(k) + 1]++;
+        }
+        for (int i = 0; i < grammar.symbolCount(); i++) starts[i + 1] += starts[i];
+        int[] occurrences = new int[starts[grammar.symbolCount()]];
+        int[] fill = Arrays.copyOf(starts, grammar.symbolCount());
+        int[] remaining = new int[productionsCount];
+        for (int i = 0; i < productionsCount; i++) {
+            for (int k = productions.offset(i, 0); k < productions.end(i); k++) {
+                int symbol = productions.symbol(k);
+                occurrences[fill[symbol]++] = i;
+                if (symbol != EPSILON) remaining[i]++;
+            }
+        }
 
-                // Step 2: Compute FIRST(β)
-                Set<Integer> firstBeta = first(beta);
+        int[] queue = new int[grammar.symbolCount()];
+        int head = 0, tail = 0;
+        for (int i = 0; i < productionsCount; i++) {
+            if (remaining[i] == 0 && SymbolSets.add(nullable, productions.lhs(i))) queue[tail++] = productions.lhs(i);
+        }
+        while (head < tail) {
+            int symbol = queue[head++];
+            for (int k = starts[symbol]; k < starts[symbol + 1]; k++) {
+                int production = occurrences[k];
+                if (--remaining[production] == 0 && SymbolSets.add(nullable, productions.lhs(production))) queue[tail++] = productions.lhs(production);
+            }
+        }
+        return nullable;
+    }
+    // Every (production, dot) pair numbered consecutively, including the dot at the end of each production
+    private int position(int production, int dot) {
+        return productions.offset(production, dot) + production;
+    }
+    // The LR(1) closure of one item with one lookahead, as the set of lookaheads of each item core in it.
+    // An item is revisited whenever its set grows, so every lookahead reaches every item it can in one pass per change.
+    private Map<Item, long[]> closure(Item kernel, int lookahead) {
+        Map<Item, long[]> J = new LinkedHashMap<>();
+        long[] seed = sets.create();
+        SymbolSets.add(seed, lookahead);
+        J.put(kernel.core(), seed);
+        Queue<Item> queue = new ArrayDeque<>();
+        queue.add(kernel.core());
+        while (!queue.isEmpty()) {
+            Item item = queue.poll();
 
-                // Step 3: Compute FIRST(βa)
-                Set<Integer> firstBetaA = new LinkedHashSet<>();
+            int length = productions.length(item.index());
+            if (item.dot() >= length) continue;
 
-                // FIRST(β) minus epsilon
-                for (int t : firstBeta) {
-                    if (t != grammar.EPSILON())
-                        firstBetaA.add(t);
-                }
+            int B = productions.symbolAt(item.index(), item.dot());
 
-                // If β derives epsilon, include FIRST(a) = {a}
-                if (firstBeta.contains(grammar.EPSILON()) || beta.isEmpty()) {
-                    firstBetaA.add(item.lookahead());
+            if (grammar.isNonTerminal(B)) {
+                // Step 1: Get beta (symbols after B in the current production), precomputed for its position
+                int beta = position(item.index(), item.dot() + 1);   // β
+
+                // Step 2: FIRST(βa) for every lookahead a of the item at once:
+                // FIRST(β) minus epsilon, and if β derives epsilon every lookahead of the item
+                final long[] firstBetaA;
+                if (SymbolSets.contains(suffixNullable, beta)) {
+                    firstBetaA = suffixFirst[beta].clone();
+                    SymbolSets.or(firstBetaA, J.get(item));
+                } else {
+                    firstBetaA = suffixFirst[beta];
                 }
 
                 // Iterate over the production index range for the given non-terminal
                 grammar.forEachProduction(B, index -> {
-                    for (Integer t : firstBetaA) {
-                        Item newItem = new Item(index,0,t);
-                        if(!J.add(newItem)) continue;
+                    Item newItem = new Item(index,0,null);
+                    long[] lookaheads = J.get(newItem);
+                    if (lookaheads == null) {
+                        J.put(newItem, firstBetaA.clone());
+                        queue.add(newItem);
+                    } else if (SymbolSets.or(lookaheads, firstBetaA)) {
                         queue.add(newItem);
-                        System.out.println(grammar.symbol(t));
                     }
                 });
             }
@@ -207,10 +314,10 @@ public class LALR1ParseTableGenerator {
     }
     //[PUBLIC_METHODS]
     public List<HashMap<Integer,Action>> generate() {
-        HashMap<SignedItem, Set<Integer>> spontaneous = new HashMap<>();
+        HashMap<SignedItem, long[]> spontaneous = new HashMap<>();
         HashMap<SignedItem, Set<SignedItem>> propagated = new HashMap<>();
         HashMap<Integer,int[]> transitions = new HashMap<>();
-        Map<Integer, Map<Item, Set<Integer>>> lookaheads;
+        Map<Integer, Map<Item, long[]>> lookaheads;
 
         processStates(spontaneous, propagated, transitions);
         lookaheads = initLookaheadTable(spontaneous);
@@ -218,205 +325,236 @@ public class LALR1ParseTableGenerator {
 
         List<HashMap<Integer,Action>> actions = calculateParseTable(lookaheads,transitions);
 
-        System.out.println("Channels:");
-        printChannels(spontaneous, propagated);
-        printLookaheads(lookaheads);
-        printTransitions(transitions);
-        printActions(actions);
+        if (debug) {
+            System.out.println("Channels:");
+            printChannels(spontaneous, propagated);
+            printLookaheads(lookaheads);
+            printTransitions(transitions);
+            printActions(actions);
+        }
         return actions;
     }
 
+    /**
+     * Returns the number of conflicts the last call to {@link #generate()} resolved by overwriting an action.
+     * <p>
+     * A reduce that replaces a different reduce, or a shift that replaces a reduce, counts as one.
+     * The grammar is LALR(1) exactly when this is {@code 0}.
+     *
+     * @return the number of conflicts in the generated table
+     */
+    public int conflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Generates the table for {@code grammar} without printing anything and returns its number of conflicts.
+     * <p>
+     * This is the check to hand {@link Grammar#simplify(java.util.function.ToIntFunction)}, and the one
+     * {@link ParserGenerator} uses to decide between a grammar and its rewrites.
+     *
+     * @param grammar the grammar to check
+     * @return the number of conflicts in its table, see {@link #conflicts()}
+     */
+    public static int conflicts(Grammar grammar) {
+        LALR1ParseTableGenerator generator = new LALR1ParseTableGenerator(grammar, false);
+        generator.generate();
+        return generator.conflicts;
+    }
+
     //[HELPER_METHODS_FOR_GENERATE]
-    private void processStates(HashMap<SignedItem, Set<Integer>> spontaneous, HashMap<SignedItem, Set<SignedItem>> propagated, HashMap<Integer, int[]> transitions) {
+    private void processStates(HashMap<SignedItem, long[]> spontaneous, HashMap<SignedItem, Set<SignedItem>> propagated, HashMap<Integer, int[]> transitions) {
         // 1. Define the start item
-        Item startItem = new Item(grammar.START(), 0, null);
+        long startItem = Item.pack(grammar.START(), 0, -1);
 
         // 2. Supporting grammar data
 
         int symbolCount = grammar.symbolCount();
 
         // 3. State machine bookkeeping
-        Map<Set<Item>, Integer> stateToId = new LinkedHashMap<>();
-        Queue<Set<Item>> queue = new LinkedList<>();
-        Set<Item> start = new HashSet<>();
-        start.add(startItem);
-        stateToId.put(start, 0);
-        queue.add(start);
-        int fromState = 0;
-        int stateId = 1;
-
-        spontaneous.computeIfAbsent(new SignedItem(0, startItem), _ -> new HashSet<>()).add(grammar.EOF());
-        while (!queue.isEmpty()) {
-            Set<Item> state = queue.poll();   // current LR(0) kernel
-            if (state == null) throw new IllegalStateException("State should never be null");
-            System.out.println(fromState + " " + state.stream().map(grammar::toString).toList());
+        // States are numbered in the order they are found and processed in that order, so the table doubles as the queue
+        StateTable states = new StateTable();
+        states.intern(Kernel.of(new long[]{startItem}, 1));
+        Successors successors = new Successors(symbolCount);
+
+        spontaneous.merge(new SignedItem(0, Item.unpack(startItem)), sets.with(sets.empty(), grammar.EOF()), sets::union);
+        for (int fromState = 0; fromState < states.size(); fromState++) {
+            Kernel state = states.kernel(fromState);   // current LR(0) kernel
+            if (debug) System.out.println(fromState + " " + items(state).stream().map(grammar::toString).toList());
             int[] transitionTable = new int[symbolCount];
             Arrays.fill(transitionTable,-1);
 
-            stateId = expandItems(transitions, state, derivations, stateToId, queue, stateId, transitionTable, fromState);
+            expandItems(transitions, state, states, successors, transitionTable, fromState);
             calculateLookaheadData(spontaneous, propagated, state, transitionTable, fromState);
-            fromState++; // advance to the next state id for propagation tracking
         }
     }
 
-       private int expandItems(HashMap<Integer, int[]> transitions, Set<Item> state, HashMap<Integer,Set<Integer>> derivations, Map<Set<Item>, Integer> stateToId, Queue<Set<Item>> queue, int stateId, int[] transitionTable, int fromState) {
-        HashMap<Integer, Set<Item>> allGotos = new HashMap<>();
+    private void expandItems(HashMap<Integer, int[]> transitions, Kernel state, StateTable states, Successors successors, int[] transitionTable, int fromState) {
+        // the non-terminals some item of the state has the dot in front of, and everything they derive at their left edge
+        long[] derived = sets.create();
 
-        for (Item item : state) {
+        for (int i = 0; i < state.size(); i++) {
+            long item = state.item(i);
             // Only expand items where the dot is not at the end
-            if (grammar.atEnd(item)) continue;
+            if (Item.dot(item) >= productions.length(Item.index(item))) continue;
 
-            System.out.println("\t"+grammar.toString(item));
+            if (debug) System.out.println("\t"+grammar.toString(Item.unpack(item)));
             // Advance the dot to build a candidate successor kernel
-            Integer gotoSymbol = grammar.symbol(item);
-            System.out.println("\t\tGotoSymbol:" + grammar.symbol(gotoSymbol));
+            int gotoSymbol = productions.symbolAt(Item.index(item), Item.dot(item));
+            if (debug) System.out.println("\t\tGotoSymbol:" + grammar.symbol(gotoSymbol));
 
-            allGotos.computeIfAbsent(gotoSymbol, _ -> new HashSet<>()).add(item.advance());
+            successors.add(gotoSymbol, Item.advance(item));
 
-            if (grammar.isNonTerminal(gotoSymbol)) calculateGotos(derivations.get(gotoSymbol), allGotos);
+            if (grammar.isNonTerminal(gotoSymbol)) SymbolSets.or(derived, derivations[gotoSymbol]);
         }
+        calculateGotos(derived, successors);
 
-        stateId = buildStates(stateToId, queue, stateId, transitionTable, allGotos);
+        buildStates(states, successors, transitionTable);
         transitions.put(fromState, transitionTable);
-
-        return stateId;
     }
-    private void calculateGotos(Set<Integer> derivations, HashMap<Integer, Set<Item>> gotos) {
+    private void calculateGotos(long[] derivations, Successors successors) {
         // Group productions by their first symbol
-        for (Integer nt : derivations) {
-            grammar.forEachProduction(nt,index -> {
-                Production p = grammar.production(index);
-                if (p.isEmpty()) return;
-                Integer s = p.getFirst();
-                gotos.computeIfAbsent(s, _ -> new HashSet<>())
-                        .add(new Item(index, 1, null));
+        for (int nt = SymbolSets.next(derivations, 0); nt >= 0; nt = SymbolSets.next(derivations, nt + 1)) {
+            grammar.forEachProduction(nt, index -> {
+                if (productions.length(index) == 0) return;
+                successors.add(productions.symbolAt(index, 0), Item.pack(index, 1, -1));
             });
 
         }
-        System.out.println("\t\t\t" +
-                    gotos.keySet().stream()
-                            .map(key -> grammar.symbol(key) + " -> " +
-                                    gotos.get(key).stream()
-                                            .map(grammar::toString)
-                                            .collect(Collectors.toSet())
-                            ).collect(Collectors.joining("\n\t\t\t"))
-            );
+        if (debug) System.out.println("\t\t\t" + successors);
     }
-    private int buildStates(Map<Set<Item>, Integer> stateToId, Queue<Set<Item>> queue, int stateId, int[] transitionTable, HashMap<Integer, Set<Item>> gotos) {
-        for (int symbol : gotos.keySet()) {
-            Set<Item> newState = gotos.get(symbol);
-            if (!stateToId.containsKey(newState)) {
-                queue.add(newState);
-                stateToId.put(newState, stateId);
-                transitionTable[symbol] = stateId;
-                stateId++;
-                continue;
-            }
-            transitionTable[symbol] = stateToId.get(newState);
+    private void buildStates(StateTable states, Successors successors, int[] transitionTable) {
+        for (int symbol = 0; symbol < transitionTable.length; symbol++) {
+            Kernel newState = successors.take(symbol);
+            if (newState != null) transitionTable[symbol] = states.intern(newState);
         }
-        return stateId;
     }
-    private void calculateLookaheadData(HashMap<SignedItem, Set<Integer>> spontaneous, HashMap<SignedItem, Set<SignedItem>> propagated, Set<Item> state, int[] transitionTable, int fromState) {
-        for (Item item : state) {
-            // ==== Lookahead propagation ====
-            // Seed an LR(1) item with a placeholder TEST lookahead
-            Item seededItem = new Item(item.index(), item.dot(), grammar.TEST());
-            Set<Item> seededItemSet = Set.of(seededItem);
-
-            // Compute LR(1) closure of this seeded item
-            Set<Item> closure = closure(seededItemSet);
-            System.out.println("Closure:\n\t"+closure.stream().map(grammar::toString).collect(Collectors.joining("\n\t")));
-
-            for (Item B : closure) {
-//                if (grammar.atEnd(B)) continue;
-                Production production = grammar.production(B.index());
-                int lookahead = B.lookahead();
-
-                if (production.atEnd(B.dot())) {
+    private void calculateLookaheadData(HashMap<SignedItem, long[]> spontaneous, HashMap<SignedItem, Set<SignedItem>> propagated, Kernel state, int[] transitionTable, int fromState) {
+        for (int i = 0; i < state.size(); i++) {
+            long packed = state.item(i);
+            Closure closure = closure(packed);
+            Item item = Item.unpack(packed);
+            if (debug) System.out.println("Closure:\n\t" + closure);
+
+            SignedItem from = new SignedItem(fromState, item);
+            for (int j = 0; j < closure.items.length; j++) {
+                Item B = closure.items[j];
+                long[] generated = closure.generated[j];
+
+                if (B.dot() >= productions.length(B.index())) {
                     // At dot at end: this item should emit a reduce lookahead.
                     // It should NOT be skipped — record propagation!
-                    if (lookahead == grammar.TEST()) {
-                        propagated.computeIfAbsent(new SignedItem(fromState, item), _ -> new HashSet<>())
-                                .add(new SignedItem(fromState, B.core()));
-                    } else {
-                        spontaneous.computeIfAbsent(new SignedItem(fromState, B.core()), _ -> new HashSet<>())
-                                .add(lookahead);
+                    if (closure.propagates[j]) {
+                        propagated.computeIfAbsent(from, _ -> new HashSet<>())
+                                .add(new SignedItem(fromState, B));
+                    }
+                    if (generated != null) {
+                        spontaneous.merge(new SignedItem(fromState, B), generated, sets::union);
                     }
                     continue;
                 }
 
-                int symbolId = grammar.symbol(B);
+                int symbolId = productions.symbolAt(B.index(), B.dot());
                 int toState = transitionTable[symbolId];
                 if (toState < 0) continue;
+                SignedItem target = new SignedItem(toState, closure.advanced[j]);
 
-
-                // If this item carries a real lookahead, record spontaneous propagation
-                if (lookahead != grammar.TEST()) {
-                    spontaneous.computeIfAbsent(
-                            new SignedItem(toState, B.advance().core()),
-                            _ -> new HashSet<>()
-                    ).add(lookahead);
+                // If this item carries real lookaheads, record spontaneous propagation
+                if (generated != null) {
+                    spontaneous.merge(target, generated, sets::union);
                 }
 
                 // Record propagated lookahead relation:
                 // from (state,item) → to (state,item)
                 propagated.computeIfAbsent(
-                        new SignedItem(fromState, item),
+                        from,
                         _ -> new HashSet<>()
-                ).add(
-                        new SignedItem(toState, B.advance().core())
-                );
+                ).add(target);
             }
         }
     }
+    // The closure of a kernel item, computed the first time any state has the item.
+    // The lookaheads it generates and whether the kernel item's own ones reach each item depend only on the item, not on the state.
+    private Closure closure(long kernel) {
+        int position = position(Item.index(kernel), Item.dot(kernel));
+        if (closures[position] != null) return closures[position];
+
+        // ==== Lookahead propagation ====
+        // Compute the LR(1) closure of the item seeded with a placeholder TEST lookahead
+        final int TEST = grammar.TEST();
+        Map<Item, long[]> closure = closure(Item.unpack(kernel), TEST);
+        int size = closure.size();
+        Item[] items = new Item[size];
+        Item[] advanced = new Item[size];
+        boolean[] propagates = new boolean[size];
+        long[][] generated = new long[size][];
+        int j = 0;
+        for (var entry : closure.entrySet()) {
+            Item B = entry.getKey();
+            // TEST stands for whatever the kernel item's lookaheads turn out to be, the rest are spontaneous
+            long[] lookaheads = entry.getValue();
+            items[j] = B;
+            if (B.dot() < productions.length(B.index())) advanced[j] = B.advance().core();
+            propagates[j] = SymbolSets.contains(lookaheads, TEST);
+            lookaheads[TEST >>> 6] &= ~(1L << TEST);
+            generated[j] = SymbolSets.isEmpty(lookaheads) ? null : sets.intern(lookaheads);
+            j++;
+        }
+        return closures[position] = new Closure(items, advanced, propagates, generated);
+    }
 
-    private static Map<Integer, Map<Item, Set<Integer>>> initLookaheadTable(HashMap<SignedItem, Set<Integer>> spontaneous) {
-        Map<Integer,Map<Item,Set<Integer>>> lookaheads = new HashMap<>();
+    private static Map<Integer, Map<Item, long[]>> initLookaheadTable(HashMap<SignedItem, long[]> spontaneous) {
+        Map<Integer,Map<Item,long[]>> lookaheads = new HashMap<>();
         spontaneous.forEach((signedItem, terminals) -> {
-            lookaheads.computeIfAbsent(signedItem.state, _ -> new HashMap<>()).computeIfAbsent(signedItem.item, _ -> new HashSet<>()).addAll(terminals);
+            lookaheads.computeIfAbsent(signedItem.state, _ -> new HashMap<>()).put(signedItem.item, terminals);
         });
         return lookaheads;
     }
 
-    private void propagateLookaheads(Map<Integer, Map<Item, Set<Integer>>> lookaheads, Map<SignedItem, Set<SignedItem>> propagated) {
+    // Every set stays hash-consed: a union that adds nothing keeps the same instance, which is also the change check
+    private void propagateLookaheads(Map<Integer, Map<Item, long[]>> lookaheads, Map<SignedItem, Set<SignedItem>> propagated) {
 
         boolean changed = true;
         while (changed) {
             changed = false;
             for (var entry : propagated.entrySet()) {
                 SignedItem from = entry.getKey();
-                Set<Integer> terminals = lookaheads
+                long[] terminals = lookaheads
                         .getOrDefault(from.state, Map.of())
-                        .getOrDefault(from.item, Set.of());
-
-//                if (terminals.isEmpty()) continue;
+                        .getOrDefault(from.item, sets.empty());
 
                 for (SignedItem to : entry.getValue()) {
-                    changed |= lookaheads
-                            .computeIfAbsent(to.state, _ -> new HashMap<>())
-                            .computeIfAbsent(to.item, _ -> new HashSet<>())
-                            .addAll(terminals);
+                    Map<Item, long[]> target = lookaheads.computeIfAbsent(to.state, _ -> new HashMap<>());
+                    long[] before = target.computeIfAbsent(to.item, _ -> sets.empty());
+                    long[] after = sets.union(before, terminals);
+                    if (after == before) continue;
+                    target.put(to.item, after);
+                    changed = true;
                 }
             }
         }
     }
 
-    private List<HashMap<Integer,Action>> calculateParseTable(Map<Integer, Map<Item, Set<Integer>>> lookaheads, HashMap<Integer, int[]> transitions) {
+    private List<HashMap<Integer,Action>> calculateParseTable(Map<Integer, Map<Item, long[]>> lookaheads, HashMap<Integer, int[]> transitions) {
         List<HashMap<Integer,Action>> ACTIONS = new ArrayList<>();
+        conflicts = 0;
 //        Map<Integer state, Map<Item itemsInState, Set<Integer> lookaheadsSymbols>> lookaheads
         for (int i = 0; i < lookaheads.size(); i++) {
-            Map<Item, Set<Integer>> lookahead = lookaheads.get(i);
+            Map<Item, long[]> lookahead = lookaheads.get(i);
             if (lookahead == null) continue;
             HashMap<Integer,Action> actions = new HashMap<>();
             //
             for (Item key : lookahead.keySet()) {
                 if (!grammar.atEnd(key)) continue;
-                for (int symbol : lookahead.get(key)) {
+                long[] terminals = lookahead.get(key);
+                for (int symbol = SymbolSets.next(terminals, 0); symbol >= 0; symbol = SymbolSets.next(terminals, symbol + 1)) {
                     if (key.index() == grammar.START()) {
                         actions.put(symbol,new Action(ActionType.ACCEPT,0));
                         continue;
                     }
-                    actions.put(symbol,new Action(ActionType.REDUCE, key.index()));
+                    Action reduce = new Action(ActionType.REDUCE, key.index());
+                    Action previous = actions.put(symbol,reduce);
+                    if (previous != null && !previous.equals(reduce)) conflicts++;
                 }
             }
             ACTIONS.add(actions);
@@ -431,7 +569,7 @@ public class LALR1ParseTableGenerator {
 //                    epsilonTransitionMap[index] = transitionTable[symbol];
                     int target = transitionTable[symbol];
                     if (target < 0) continue;
-                    System.out.println((ACTIONS.size() - 1) + " < " + target);
+                    if (debug) System.out.println((ACTIONS.size() - 1) + " < " + target);
                     while (ACTIONS.size() - 1 < target) {
                         ACTIONS.add(new HashMap<>());
                     }
@@ -447,19 +585,20 @@ public class LALR1ParseTableGenerator {
                 while (ACTIONS.size() <= index) {
                     ACTIONS.add(new HashMap<>());
                 }
-                ACTIONS.get(index).put(symbol, new Action(grammar.isNonTerminal(symbol) ? ActionType.GOTO : ActionType.SHIFT, state));
+                Action previous = ACTIONS.get(index).put(symbol, new Action(grammar.isNonTerminal(symbol) ? ActionType.GOTO : ActionType.SHIFT, state));
+                if (previous != null && previous.type() == ActionType.REDUCE) conflicts++;
             }
         }
         return ACTIONS;
     }
 
-    private void printChannels(HashMap<SignedItem, Set<Integer>> spontaneous, HashMap<SignedItem, Set<SignedItem>> propagated) {
+    private void printChannels(HashMap<SignedItem, long[]> spontaneous, HashMap<SignedItem, Set<SignedItem>> propagated) {
         System.out.println("Channels:");
         System.out.println("\tSpontaneous");
         spontaneous.forEach((key, values) -> {
             String front = key.toReadable(grammar);
             front += " ".repeat(Math.max(0,20 - front.length()));
-            System.out.println("\t\t" +front + " ==> " + values.stream().map(item -> grammar.symbol(item).toString()).collect(Collectors.joining(", ", "[", "]")));
+            System.out.println("\t\t" +front + " ==> " + symbols(values).stream().map(Symbol::toString).collect(Collectors.joining(", ", "[", "]")));
         });
         System.out.println("\tPropagated");
         propagated.forEach((key, values) -> {
@@ -470,13 +609,13 @@ public class LALR1ParseTableGenerator {
             });
         });
     }
-    private void printLookaheads(Map<Integer, Map<Item, Set<Integer>>> lookaheads) {
+    private void printLookaheads(Map<Integer, Map<Item, long[]>> lookaheads) {
         for (int i = 0; i < lookaheads.size(); i++) {
-            Map<Item, Set<Integer>> lookahead = lookaheads.get(i);
+            Map<Item, long[]> lookahead = lookaheads.get(i);
             if (lookahead == null) continue;
             for (Item key : lookahead.keySet()) {
                 String item = grammar.toString(key);
-                String text = item + " ".repeat(Math.max(0,17 - item.length())) + "Lookaheads: " + lookahead.get(key).stream().map(grammar::symbol).toList();
+                String text = item + " ".repeat(Math.max(0,17 - item.length())) + "Lookaheads: " + symbols(lookahead.get(key));
                 System.out.println("State: " + i + " Item: " + text);
             }
         }
@@ -505,4 +644,25 @@ public class LALR1ParseTableGenerator {
             System.out.println(i + " " + actions.keySet().stream().map(key -> '"' + grammar.symbol(key).toString() + "\" ==> " + actions.get(key)).toList());
         }
     }
-}
\ No newline at end of file
+
+    // The items of a kernel, in order
+    private static List<Item> items(Kernel kernel) {
+        List<Item> items = new ArrayList<>(kernel.size());
+        for (int i = 0; i < kernel.size(); i++) items.add(Item.unpack(kernel.item(i)));
+        return items;
+    }
+    // The symbols in a set, in index order
+    private List<Symbol> symbols(long[] set) {
+        List<Symbol> symbols = new ArrayList<>();
+        for (int i = SymbolSets.next(set, 0); i >= 0; i = SymbolSets.next(set, i + 1)) symbols.add(grammar.symbol(i));
+        return symbols;
+    }
+    // One line per non-terminal, with the symbols of its set
+    private String printSets(long[][] sets) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < sets.length; i++) {
+            if (sets[i] != null) lines.add(grammar.symbol(i) + " => " + symbols(sets[i]));
+        }
+        return String.join("\n", lines);
+    }
+}
@@ -1,153 +1,295 @@
 package com.viffx.Lang.Compiler;
 
-import com.viffx.Lang.Symbols.Terminal;
-import com.viffx.Lang.Utils.LexicalCharacterBuffer;
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.NameInterner;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.TokenSpan;
+import com.viffx.Lang.Utils.CharSource;
+import com.viffx.Lang.Utils.CharWindow;
+import com.viffx.Lang.Utils.RingBuffer;
 
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Set;
 
 import static com.viffx.Lang.Symbols.SymbolType.*;
 import static java.lang.Character.*;
 
-public class Lexer {
-    private LexicalCharacterBuffer buffer;
-    private int sourceIndex = 1;
-    private int index = 1;
+public class Lexer implements TokenStream {
+    private final CharWindow window;
     private int rule = 1;
-    private Terminal nextToken = null;
-    private final boolean[] recognized = {false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, true, false, false, false, false, false, false, true, true, true, true, true, true, true, true, false, false, false, false, false, false, false, false, false, false, true, true, true, true, true, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, true, false, true, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, false, true, true, true};
-    private final Set<String> keywords;
+    private final RingBuffer<TokenSpan> lookahead = new RingBuffer<>();
+    private int newLine = -1;
+    private int acceptedState = -1;
+    private int tokenStart;
+    private int tokenEnd;
+    private final DfaScanner scanner;
+    private final CharScanner charScanner;
+    private final KeywordMatcher keywords;
+    private Trivia trivia;
+    private NameInterner names;
+    private SourcePositions positions;
 
     public Lexer(String filePath, Set<String> keywords) throws IOException {
-        buffer = new LexicalCharacterBuffer(filePath) {
-            @Override
-            public void onNextChar() {
-                sourceIndex++;
-                index++;
-            }
-        };
+        this(CharSource.mapped(filePath), keywords);
+    }
+
+    // Without a grammar every run of operator characters is lexed as one SYM token
+    public Lexer(CharSource source, Set<String> keywords) {
+        this(source, DfaScanner.legacy(), keywords);
+    }
+
+    public Lexer(String filePath, Grammar grammar) throws IOException {
+        this(CharSource.mapped(filePath), grammar);
+    }
+
+    public Lexer(CharSource source, Grammar grammar) {
+        this(source, DfaScanner.of(grammar), grammar.getKeywords());
+    }
+
+    public Lexer(CharSource source, DfaScanner scanner, Set<String> keywords) {
+        this(source, scanner, CharScanner.best(), keywords);
+    }
+
+    public Lexer(CharSource source, DfaScanner scanner, CharScanner charScanner, Set<String> keywords) {
+        this(new CharWindow(source), scanner, charScanner, KeywordMatcher.of(keywords));
+    }
+
+    // Lexes an existing window from its current position. Used to share the immutable tables between lexers.
+    Lexer(CharWindow window, DfaScanner scanner, CharScanner charScanner, KeywordMatcher keywords) {
+        this.window = window;
+        this.scanner = scanner;
+        this.charScanner = charScanner;
         this.keywords = keywords;
     }
 
+    /* Skips comments from now on: instead of being returned as COMMENT tokens they are recorded in trivia, along with whitespace runs if it asks for them.
+     * Tokens that have already been peeked at are not affected. Returns this lexer.
+     */
+    public Lexer skipTrivia(Trivia trivia) {
+        this.trivia = trivia;
+        return this;
+    }
+
+    /* Interns the text of every ID token from now on, so the spans it returns carry their canonical Name.
+     * The interner may be shared with lexers running on other threads. Returns this lexer.
+     */
+    public Lexer internNames(NameInterner names) {
+        this.names = names;
+        return this;
+    }
+
     // Gets the nextToken token.
-    public Terminal next() throws Exception {
-        // Peeking optimization
-        if (nextToken != null) {
-            Terminal temp = new Terminal(nextToken.type(),nextToken.value());
-            nextToken = null;
-            return temp;
+    @Override
+    public TokenSpan next() throws Exception {
+        // Tokens that were peeked at are handed out first
+        if (!lookahead.isEmpty()) return lookahead.poll();
+        return scan();
+    }
+
+    // Scans the next token into a span, bypassing the lookahead
+    private TokenSpan scan() {
+        SymbolType type = advance();
+        if (type == EOF) return TokenSpan.EOF;
+        return span(type, tokenStart, tokenEnd);
+    }
+
+    /* Scans the next token without allocating anything.
+     * Returns its type and leaves its text in [tokenStart(), tokenEnd()) of source(), or returns EOF at the end of the source.
+     * Used by batch consumers such as TokenTable. It skips past the lookahead, so drain it with pollLookahead() first.
+     */
+    SymbolType advance() {
+        SymbolType type = nextToken();
+        // In trivia mode comments go to the side channel and are skipped like whitespace
+        while (type == COMMENT && trivia != null) {
+            trivia.add(Trivia.Kind.COMMENT, window.array(), tokenStart, tokenEnd);
+            type = nextToken();
         }
+        return type;
+    }
 
+    private SymbolType nextToken() {
         // Never process past the end of the source
-        if (buffer.eof()) return Terminal.EOF;
+        if (window.eof()) return EOF;
 
-        // Get the nextToken token
-        char c = buffer.crntChar();
         // Skip any white space
+        int p = window.position();
+        char c = window.array()[p];
         if (isWhitespace(c)) {
-            boolean detected_new_line = false;
-            do {
-                detected_new_line |= c == '\n';
-                if (buffer.eof()) break;
-                c = buffer.nextChar();
-            } while (isWhitespace(c));
-            if (detected_new_line) return new Terminal(SYM,"\n");
+            int run = p;
+            p = skipWhitespace(p);
+            window.position(p);
+            if (trivia != null && trivia.recordsWhitespace()) trivia.add(Trivia.Kind.WHITESPACE, window.array(), run, p);
+            if (newLine >= 0) return token(SYM, newLine, newLine + 1);
+            if (window.eof()) return EOF;
+            c = window.array()[p];
         }
 
+        // Run the scanner as far as it goes and keep the longest accepted lexeme
+        int end = scan(p);
+        if (end < 0) throw new RuntimeException("Unrecognized symbol: '" + c + "' at " + describe(p));
+        SymbolType type = scanner.accepted(acceptedState);
+
         // Get the nextToken token
-        return switch (c) {
-            case '"' -> nextStringLiteral();
-            case '#' -> nextComment();
-            case '\'' -> nextCharLiteral();
-            default -> {
-                char crntChar = buffer.crntChar();
-                if (recognizedChar(crntChar)) yield nextSymbol();
-                if (!isLetterOrDigit(crntChar)) throw new RuntimeException("Unrecognized symbol: '" + crntChar + "'" + "Local Index: " + index + " Index: " + sourceIndex);
-
-                StringBuilder builder = new StringBuilder();
-                builder.append(crntChar);
-                if (!isLetter(crntChar)) {
-                    while (!buffer.eof() && isLetterOrDigit(buffer.peekChar())) {
-                        builder.append(buffer.nextChar());
-                    }
-                    buffer.nextChar();
-                    if (!builder.isEmpty()) yield new Terminal(NUM,builder.toString());
-                    builder.append("@");
-                }
-                crntChar = buffer.crntChar();
-                if (!isLetter(crntChar)) {
-                    throw new RuntimeException("Unrecognized symbol: '" + crntChar + "'" + "Local Index: " + index + " Index: " + sourceIndex);
+        return switch (type) {
+            case STR -> nextStringLiteral();
+            case COMMENT -> nextComment();
+            case CHR -> nextCharLiteral();
+            case ID -> {
+                window.position(end);
+                if (keywords.isKeyword(window.array(), p, end)) {
+                    yield token(KEY, p, end);
                 }
-                while (!buffer.eof() && isLetterOrDigit(buffer.peekChar())) {
-                    builder.append(buffer.nextChar());
-                }
-                buffer.nextChar();
-                String keywordOrIdentifier = builder.toString();
-                if (keywords.contains(keywordOrIdentifier)) {
-                    yield new Terminal(KEY,builder.toString());
-                }
-                yield new Terminal(ID,builder.toString());
+                yield token(ID, p, end);
+            }
+            default -> {
+                window.position(end);
+                yield token(type, p, end);
             }
         };
     }
 
+    /* Returns the token k places after the one next() will return, without consuming anything.
+     * Every token up to it is scanned and queued, so any small k costs no more than reading that far.
+     * Peeked tokens are queued in a ring buffer and handed out by next() before anything new is scanned.
+     * Past the end of the source this returns TokenSpan.EOF.
+     */
+    @Override
+    public TokenSpan peek(int k) throws Exception {
+        while (lookahead.size() <= k) lookahead.add(scan());
+        return lookahead.peek(k);
+    }
 
+    // Removes the next queued lookahead token, or returns null if nothing has been peeked at
+    TokenSpan pollLookahead() {
+        return lookahead.isEmpty() ? null : lookahead.poll();
+    }
 
-    /* Uses nextToken to peek the nextToken token.
-     * Next has an optimization where if the stored value of a peek is non-null it returns the peeked value instead
-     * This optimization also helps to avoid jump backs*/
-    public Terminal peek() throws Exception {
-        return nextToken = next();
+    // The array the last token returned by advance() was scanned into. Grows as the source is read.
+    char[] source() {
+        return window.array();
+    }
+    int tokenStart() {
+        return tokenStart;
+    }
+    int tokenEnd() {
+        return tokenEnd;
+    }
+    // The interner ID tokens are interned with, or null
+    NameInterner names() {
+        return names;
+    }
+    /* Returns the lines and columns of the offsets in the spans this lexer returns, over everything read so far, which is the whole source once EOF has been returned.
+     * The same instance is returned until more of the source is read, so the line starts it has found are kept between calls.
+     */
+    public SourcePositions positions() {
+        SourcePositions current = positions;
+        if (current == null || current.source() != window.array() || current.end() != window.limit()) {
+            positions = current = new SourcePositions(window.array(), window.start(), window.limit());
+        }
+        return current;
+    }
+    // Where the next call to advance() starts, past the closing character of a block and past the whole whitespace run of a new line
+    int position() {
+        return window.position();
     }
 
     // Methods used by peek to handle different cases
-    private Terminal nextStringLiteral() throws Exception {
-        return new Terminal(STR, nextBlock('"'));
-    }
-    private Terminal nextCharLiteral() throws Exception {
-        return new Terminal(CHR, nextBlock('\''));
+    private SymbolType nextStringLiteral() {
+        return nextBlock(STR, '"');
     }
-    private Terminal nextComment() throws Exception {
-        String block = nextBlock('#');
-        return new Terminal(COMMENT, block);
+    private SymbolType nextCharLiteral() {
+        return nextBlock(CHR, '\'');
     }
-    private Terminal nextSymbol() throws Exception {
-        StringBuilder builder = new StringBuilder();
-        do {
-            builder.append(buffer.crntChar());
-        } while (!buffer.eof() && recognizedChar(buffer.nextChar()));
-        return new Terminal(SYM, builder.toString());
+    private SymbolType nextComment() {
+        return nextBlock(COMMENT, '#');
     }
 
     /* Helper method that enables string literals and comments
-     * Returns a string composed of character up to the first non escaped end character
+     * Records the characters up to the first non escaped end character as the token.
+     * Escape sequences are left as written.
      */
-    private String nextBlock(char endChar) throws Exception {
-        StringBuilder builder = new StringBuilder();
-        boolean escaped = false;
-        char c = buffer.nextChar();
-
-        while (c != endChar || escaped) {
-            if (c == '\\') {
-                if (escaped) {
-                    builder.append('\\');
+    private SymbolType nextBlock(SymbolType type, char endChar) {
+        int from = window.position() + 1;
+        int p = from;
+        while (true) {
+            char[] chars = window.array();
+            int limit = window.limit();
+            while (p < limit) {
+                p = charScanner.indexOfEither(chars, p, limit, endChar, '\\');
+                if (p == limit) break;
+                if (chars[p] == endChar) {
+                    window.position(p + 1);
+                    return token(type, from, p);
                 }
-                escaped = !escaped; // Toggle the escaped state
-            } else {
-                if (escaped) {
-                    builder.append('\\');
-                    escaped = false; // Reset escaped after adding backslash
+                // a backslash escapes whatever character follows it
+                p += 2;
+            }
+            if (!window.fill()) {
+                window.position(window.limit());
+                throw new RuntimeException("Reached the end of the file while lexing a " + endChar + "..." + endChar + " block starting at " + describe(from - 1));
+            }
+        }
+    }
+    private SymbolType token(SymbolType type, int from, int to) {
+        tokenStart = from;
+        tokenEnd = to;
+        return type;
+    }
+    private TokenSpan span(SymbolType type, int from, int to) {
+        char[] chars = window.array();
+        if (type == ID && names != null) return new TokenSpan(type, chars, from, to - from, names.intern(chars, from, to));
+        return new TokenSpan(type, chars, from, to - from);
+    }
+
+    // ====== SCANNING LOOPS ====== //
+    // Each loop runs over the window's array and only refills it when it runs off the end of the block.
+
+    /* Returns the index of the first non-whitespace character at or after p.
+     * Records the index of the first new line in the run in newLine, or -1 if there was none.
+     */
+    private int skipWhitespace(int p) {
+        newLine = -1;
+        while (true) {
+            char[] chars = window.array();
+            int limit = window.limit();
+            while (p < limit) {
+                int end = charScanner.skipWhitespace(chars, p, limit);
+                if (newLine < 0) {
+                    int n = charScanner.indexOf(chars, p, end, '\n');
+                    if (n < end) newLine = n;
                 }
-                builder.append(c);
+                p = end;
+                // non ASCII whitespace is skipped one character at a time
+                if (p == limit || !isWhitespace(chars[p])) break;
+                p++;
             }
-            c = buffer.nextChar();
+            if (p < limit || !window.fill()) return p;
         }
-        buffer.nextChar();
-        return builder.toString();
     }
-    public boolean recognizedChar(char c) {
-        if (c >= recognized.length) return false;
-        return recognized[c];
+    /* Feeds the scanner from p until it dies (maximal munch).
+     * Returns the end of the longest accepted lexeme and stores its state in acceptedState, or returns -1 if none was accepted.
+     */
+    private int scan(int p) {
+        int state = scanner.start();
+        int end = -1;
+        while (true) {
+            char[] chars = window.array();
+            int limit = window.limit();
+            while (p < limit) {
+                state = scanner.next(state, chars[p++]);
+                if (state == DfaScanner.DEAD) return end;
+                if (scanner.accepts(state)) {
+                    if (scanner.loopsOnLettersAndDigits(state)) p = charScanner.skipLettersOrDigits(chars, p, limit);
+                    acceptedState = state;
+                    end = p;
+                }
+            }
+            if (!window.fill()) return end;
+        }
+    }
+
+    // line and column of an offset, used in error messages
+    private String describe(int offset) {
+        return positions().describe(offset);
     }
 }
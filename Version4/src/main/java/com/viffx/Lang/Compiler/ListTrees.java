@@ -0,0 +1,69 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Grammar.ProductionShape;
+import com.viffx.Lang.Symbols.AstNode;
+import com.viffx.Lang.Symbols.Symbol;
+
+import java.util.List;
+
+/**
+ * Builds tree nodes for the list productions of a grammar from {@link Grammar#eliminateRightRecursion()},
+ * shared by {@link TableDrivenParser} and the {@link Compiler} that {@link ParserGenerator} writes.
+ *
+ * <p>For a list {@code N > α N | β} parsed as {@code N > L β; L > L α | α}, the node for
+ * {@code L} is a holder whose children are the elements read so far, each a node for
+ * {@code N} with the symbols of its {@code α}. Reducing {@code N > L β} nests them around the node
+ * for {@code β}, last element innermost, so the result is exactly the tree of the right-recursive
+ * grammar and no holder is left in it. The parser stack only ever holds one holder per list.
+ *
+ * <p>Children are added the way every reduction adds them, popped from the end of {@code ast},
+ * so a node's children are in reverse order and a nested {@code N} comes first.
+ */
+public final class ListTrees {
+    private ListTrees() {}
+
+    /**
+     * Pops the nodes for a production's right-hand side off {@code ast} and returns the node for its left-hand side.
+     *
+     * @param ast     the parser's node stack, with the right-hand side on top
+     * @param lhs     the left-hand side of the production
+     * @param element the non-terminal list nodes are built for, see {@link Grammar#element(int)}
+     * @param length  the length of the right-hand side
+     * @param shape   the shape of the production
+     * @return the node to push in place of the right-hand side
+     */
+    public static AstNode reduce(List<AstNode> ast, Symbol lhs, Symbol element, int length, ProductionShape shape) {
+        return switch (shape) {
+            case PLAIN -> pop(ast, new AstNode(lhs), length);
+            case LIST_FIRST -> {
+                AstNode list = new AstNode(lhs);
+                list.add(pop(ast, new AstNode(element), length));
+                yield list;
+            }
+            case LIST_APPEND -> {
+                AstNode next = pop(ast, new AstNode(element), length - 1);
+                AstNode list = ast.removeLast();
+                list.add(next);
+                yield list;
+            }
+            case LIST_END -> {
+                AstNode node = pop(ast, new AstNode(lhs), length - 1);
+                List<AstNode> elements = ast.removeLast().children();
+                for (int i = elements.size() - 1; i >= 0; i--) {
+                    AstNode outer = elements.get(i);
+                    outer.children().addFirst(node);
+                    node = outer;
+                }
+                yield node;
+            }
+        };
+    }
+
+    private static AstNode pop(List<AstNode> ast, AstNode node, int count) {
+        for (int i = 0; i < count; i++) {
+            node.add(ast.removeLast());
+        }
+        return node;
+    }
+}
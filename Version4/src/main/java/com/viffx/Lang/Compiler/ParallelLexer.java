@@ -0,0 +1,193 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+import com.viffx.Lang.Utils.CharSource;
+import com.viffx.Lang.Utils.CharWindow;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import static java.lang.Character.isWhitespace;
+
+/**
+ * Tokenizes large sources on several threads into a {@link TokenTable} identical to the one a
+ * single {@link Lexer} produces.
+ *
+ * <p>The source is read into memory and a quick sequential pre-pass walks it looking only at
+ * {@code "}, {@code '}, {@code #} and line breaks, skipping over blocks the same way the lexer
+ * does. About every {@code chunkSize} characters it places a cut at the end of a whitespace run
+ * that contains a line break and is not inside a block. The lexer treats such a run as a
+ * complete {@code SYM(\n)} token followed by a fresh token, so the text on either side of the
+ * cut lexes the same way whether or not the other side is there.
+ *
+ * <p>Each chunk is then lexed by its own {@link Lexer} on a {@link ForkJoinPool} worker. The
+ * lexers share the source array, the scanner and the keyword table, and every offset they
+ * record is already absolute, so the per-chunk tables are stitched together by plain array
+ * copies. If any chunk fails, the error of the earliest failing chunk is rethrown, which is the
+ * error the sequential lexer would have stopped at.
+ *
+ * <p>Grammars with operators containing quotes, {@code #}, backslashes or whitespace would make
+ * the pre-pass disagree with the lexer, so they are tokenized sequentially.
+ */
+public final class ParallelLexer {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * The default number of characters per chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private ParallelLexer() {}
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Tokenizes {@code source} with {@link #DEFAULT_CHUNK_SIZE} chunks on the common pool.
+     *
+     * @param source  the source to tokenize, read to the end and closed
+     * @param grammar the grammar whose terminals are recognized
+     * @return the tokens of the whole source
+     * @throws RuntimeException the error the sequential lexer would throw
+     */
+    public static TokenTable tokenize(CharSource source, Grammar grammar) {
+        return tokenize(source, grammar, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Tokenizes {@code source} in chunks of about {@code chunkSize} characters on {@code pool}.
+     *
+     * @param source    the source to tokenize, read to the end and closed
+     * @param grammar   the grammar whose terminals are recognized
+     * @param chunkSize the number of characters after which a chunk is cut at the next safe boundary
+     * @param pool      the pool the chunks are lexed on
+     * @return the tokens of the whole source
+     * @throws RuntimeException the error the sequential lexer would throw
+     */
+    public static TokenTable tokenize(CharSource source, Grammar grammar, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        // Read everything, array backed sources are used in place
+        CharWindow all = new CharWindow(source);
+        while (all.fill()) {}
+        char[] chars = all.array();
+        int start = all.start();
+        int limit = all.limit();
+
+        DfaScanner scanner = DfaScanner.of(grammar);
+        KeywordMatcher keywords = KeywordMatcher.of(grammar.getKeywords());
+        TerminalIds ids = new TerminalIds(grammar);
+        int[] cuts = splittable(grammar) ? cuts(chars, start, limit, chunkSize) : new int[]{start, limit};
+
+        Chunk[] chunks = new Chunk[cuts.length - 1];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk(chars, start, cuts[i], cuts[i + 1], scanner, keywords, ids, grammar.EOF());
+        }
+        if (chunks.length == 1) chunks[0].compute();
+        else pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        });
+
+        TokenTable[] tables = new TokenTable[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i].error != null) throw chunks[i].error;
+            tables[i] = chunks[i].table;
+        }
+        return TokenTable.concat(tables, new SourcePositions(chars, start, limit), grammar.EOF());
+    }
+
+    // ====== PRE-PASS ====== //
+
+    /* Returns the chunk boundaries of chars[start, limit), including start and limit.
+     * Each inner cut is the end of a whitespace run holding a line break outside every block, at least chunkSize after the previous cut.
+     */
+    static int[] cuts(char[] chars, int start, int limit, int chunkSize) {
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(start);
+        int next = start + chunkSize;
+        int p = start;
+        while (p < limit) {
+            char c = chars[p];
+            switch (c) {
+                case '"', '\'', '#' -> p = blockEnd(chars, p + 1, limit, c);
+                case '\n' -> {
+                    p++;
+                    if (p <= next) continue;
+                    while (p < limit && isWhitespace(chars[p])) p++;
+                    if (p < limit) {
+                        cuts.add(p);
+                        next = p + chunkSize;
+                    }
+                }
+                default -> p++;
+            }
+        }
+        cuts.add(limit);
+        return cuts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Returns the index after the closing endChar, or limit if the block is never closed. Mirrors Lexer.nextBlock.
+    private static int blockEnd(char[] chars, int p, int limit, char endChar) {
+        while (p < limit) {
+            char c = chars[p];
+            if (c == endChar) return p + 1;
+            // a backslash escapes whatever character follows it
+            p += c == '\\' ? 2 : 1;
+        }
+        return limit;
+    }
+
+    // The pre-pass assumes quotes, '#' and whitespace only ever appear in blocks, identifiers never do
+    private static boolean splittable(Grammar grammar) {
+        for (int i = 0; i < grammar.symbolCount(); i++) {
+            if (!(grammar.symbol(i) instanceof Terminal t) || t.type() != SymbolType.SYM || t.value() == null) continue;
+            String lexeme = t.lexeme();
+            if (lexeme.isBlank()) continue;
+            for (int j = 0; j < lexeme.length(); j++) {
+                char c = lexeme.charAt(j);
+                if (c == '"' || c == '\'' || c == '#' || c == '\\' || isWhitespace(c)) return false;
+            }
+        }
+        return true;
+    }
+
+    // ====== CHUNKS ====== //
+    // ForkJoinTask is Serializable, but a chunk only ever lives inside one tokenize call and is never serialized
+    private static final class Chunk extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Lexer lexer;
+        private final transient TerminalIds ids;
+        private final int eof;
+        private transient TokenTable table;
+        private RuntimeException error;
+
+        private Chunk(char[] chars, int start, int from, int to, DfaScanner scanner, KeywordMatcher keywords, TerminalIds ids, int eof) {
+            // The window starts where the source starts so the lexer reports the same indices as a sequential one
+            CharWindow window = new CharWindow(chars, start, to - start);
+            window.position(from);
+            this.lexer = new Lexer(window, scanner, CharScanner.best(), keywords);
+            this.ids = ids;
+            this.eof = eof;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                table = TokenTable.tokenize(lexer, ids, eof);
+            } catch (RuntimeException e) {
+                // kept as is so that the caller can rethrow exactly what the lexer threw
+                error = e;
+            }
+        }
+    }
+}
@@ -3,10 +3,11 @@ package com.viffx.Lang.Compiler;
 
 import com.viffx.Lang.Compiler.Action;
 import com.viffx.Lang.Grammar.Grammar;
-import com.viffx.Lang.Grammar.Production;
+import com.viffx.Lang.Grammar.ProductionShape;
 import com.viffx.Lang.Symbols.AstNode;
 import com.viffx.Lang.Symbols.NonTerminal;
 import com.viffx.Lang.Symbols.Terminal;
+import com.viffx.Lang.Symbols.TokenSpan;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,16 +19,35 @@ public class ParserGenerator {
     public final List<HashMap<Integer, Action>> parseTable;
 
     public ParserGenerator(String filePath) throws Exception {
+        this(filePath, false);
+    }
+
+    // With simplify, the table and the generated Compiler are built from Grammar.simplify, inlining only what adds no conflicts.
+    // Right-recursive lists are always made left-recursive unless that adds conflicts, so the Compiler's stacks stay shallow.
+    // Each candidate grammar's table is generated once and the winner's is kept; only the left-recursive one prints its working.
+    public ParserGenerator(String filePath, boolean simplify) throws Exception {
         Grammar g = Grammar.load(filePath);
+        if (simplify) g = g.simplify(LALR1ParseTableGenerator::conflicts);
+        Grammar leftRecursive = g.eliminateRightRecursion();
+        LALR1ParseTableGenerator generator = new LALR1ParseTableGenerator(leftRecursive, debug);
+        List<HashMap<Integer, Action>> table = generator.generate();
+        if (leftRecursive != g) {
+            LALR1ParseTableGenerator rightRecursive = new LALR1ParseTableGenerator(g, false);
+            List<HashMap<Integer, Action>> rightRecursiveTable = rightRecursive.generate();
+            if (rightRecursive.conflicts() >= generator.conflicts()) {
+                g = leftRecursive;
+            } else {
+                table = rightRecursiveTable;
+            }
+        }
 //        for (int i = 0; i < g.symbolCount(); i++) {
 //            if (!g.isNonTerminal(i)) continue;
 //            g.forEachProduction(i,index -> {
 //                System.out.println(g.toString(g.production(index)));
 //            });
 //        }
-        LALR1ParseTableGenerator parseTable = new LALR1ParseTableGenerator(g);
         this.grammar = g;
-        this.parseTable = parseTable.generate();
+        this.parseTable = table;
     }
 
     public static void main(String[] args) throws Exception {
@@ -38,7 +58,7 @@ public class ParserGenerator {
         ParserGenerator factory = new ParserGenerator("src/main/resources/LangGrammar4.txt");
         factory.run();
         System.out.println(factory.builder);
-        Compiler compiler = new Compiler(new Lexer("src/main/resources/CodeTest1.txt", factory.grammar.getKeywords()));
+        Compiler compiler = new Compiler(new Lexer("src/main/resources/CodeTest1.txt", factory.grammar).skipTrivia(new Trivia()));
         compiler.parse();
     }
 
@@ -52,25 +72,26 @@ public class ParserGenerator {
                 \s
                 public class Compiler {
                     // Lexer
-                    public final Lexer lexer;
+                    public final TokenStream lexer;
                     \s
                     // Symbols
                 """);
         for (int i = 0; i < grammar.symbolCount(); i++) {
-            builder.append("\tpublic final Symbol symbol").append(i).append(" = new ");
+            builder.append("\tpublic final ");
             boolean isNull = false;
             switch (grammar.symbol(i)) {
                 case Terminal t -> {
                     isNull = t.value() == null;
-                    builder.append(" Terminal(SymbolType.").append(t.type()).append(", ");
+                    builder.append("Terminal symbol").append(i).append(" = new Terminal(SymbolType.").append(t.type()).append(", ");
                     if (!isNull) {
                         builder.append("\"");
                     }
                     builder.append(t.value());
                 }
                 case NonTerminal nt -> {
-                    builder.append(" NonTerminal(\"").append(nt.value());
+                    builder.append("NonTerminal symbol").append(i).append(" = new NonTerminal(\"").append(nt.value());
                 }
+                case TokenSpan _ -> throw new IllegalStateException("Grammar symbols are never token spans");
             }
             if (!isNull) {
                 builder.append("\"");
@@ -82,13 +103,14 @@ public class ParserGenerator {
                     // Parsing state
                     public final Stack<Integer> stack = new Stack<>();
                     public final Stack<AstNode> ast = new Stack<>();
-                    public Symbol current;
+                    public TokenSpan current;
                     \s
-                    public Compiler(Lexer lexer) throws Exception {
+                    // Comments are never parsed: a lexer in trivia mode never returns them (see Lexer.skipTrivia), any other lexer's are dropped here
+                    public Compiler(TokenStream lexer) throws Exception {
                         this.lexer = lexer;
                         do {
                             current = lexer.next();
-                        } while (current instanceof Terminal t && t.type() == SymbolType.COMMENT);
+                        } while (current.type() == SymbolType.COMMENT);
                         this.stack.push(0);
                     }
                 """);
@@ -149,14 +171,14 @@ public class ParserGenerator {
                 	}
                 \s
                 	// === Utility methods for LR actions ===
-                	private void shift(Symbol s, int nextState) throws Exception {
-                 		if (!current.equals(s)) throw new Exception("Unexpected token: " + current);
+                	private void shift(Terminal s, int nextState) throws Exception {
+                 		if (!current.matches(s)) throw new Exception("Unexpected token: " + current);
                  		System.out.println("Shift: " + current);
                  		stack.push(nextState);
                  		ast.push(new AstNode(current));
                  		do {
                    			current = lexer.next();
-                   		} while (current instanceof Terminal t && t.type() == SymbolType.COMMENT);
+                   		} while (current.type() == SymbolType.COMMENT);
                  	}
                 \s
                 	private void reduce(Symbol lhs, int rhsLength) throws Exception {
@@ -174,6 +196,16 @@ public class ParserGenerator {
                  	}
                 \s
                 """);
+        if (hasListProductions()) {
+            // the productions of a rewritten right-recursive list rebuild the tree the original grammar gives
+            append(1, "private void reduceList(Symbol lhs, Symbol element, int rhsLength, com.viffx.Lang.Grammar.ProductionShape shape) throws Exception {");
+            append(2, "for (int i = 0; i < rhsLength; i++) stack.pop();",
+                    "ast.push(ListTrees.reduce(ast, lhs, element, rhsLength, shape));",
+                    "System.out.println(\"Reduce: \" + lhs + \" <- \" + rhsLength + \" symbols\");",
+                    "gotoState(stack.peek(),lhs);");
+            append(1, "}");
+            builder.append("\n");
+        }
         append(1, "private void gotoState(int state, Symbol nt) throws Exception {");
         append(2, "switch(state) {");
         for (var entry : gotoActionsList.entrySet()) {
@@ -266,10 +298,10 @@ public class ParserGenerator {
             // Build condition (single == vs multiple ||)
             String condition;
             if (symbolsList.size() == 1) {
-                condition = "current.equals(" + symbolsList.getFirst() + ")";
+                condition = "current.matches(" + symbolsList.getFirst() + ")";
             } else {
                 condition = symbolsList.stream()
-                        .map(s -> "current.equals(" + s + ")")
+                        .map(s -> "current.matches(" + s + ")")
                         .collect(Collectors.joining(" || "));
             }
             if (first) {
@@ -297,14 +329,26 @@ public class ParserGenerator {
                 builder.append("shift(").append(symbolsList.getFirst()).append(",").append(action.data());
             }
             case REDUCE -> {
-                Production p = grammar.production(action.data());
-                builder.append("reduce(symbol").append(p.lhs()).append(",").append(p.size());
+                int production = action.data();
+                if (grammar.shape(production) == ProductionShape.PLAIN) {
+                    builder.append("reduce(symbol").append(grammar.lhs(production)).append(",").append(grammar.length(production));
+                } else {
+                    builder.append("reduceList(symbol").append(grammar.lhs(production)).append(",symbol").append(grammar.element(production))
+                            .append(",").append(grammar.length(production)).append(",com.viffx.Lang.Grammar.ProductionShape.").append(grammar.shape(production));
+                }
             }
             case GOTO -> throw new IllegalStateException();
         }
         builder.append(");\n");
     }
 
+    private boolean hasListProductions() {
+        for (int i = 0; i < grammar.productionsCount(); i++) {
+            if (grammar.shape(i) != ProductionShape.PLAIN) return true;
+        }
+        return false;
+    }
+
     public void append(int depth, String... text) {
         depth = Math.max(0,depth);
         for (String line : text) {
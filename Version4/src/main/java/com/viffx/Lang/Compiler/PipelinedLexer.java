@@ -0,0 +1,199 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.TokenSpan;
+import com.viffx.Lang.Utils.RingBuffer;
+import com.viffx.Lang.Utils.SpscQueue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link Lexer} on a thread of its own so that lexing overlaps with parsing.
+ *
+ * <p>The lexer thread scans tokens into fixed-size batches and hands each full batch to
+ * the parser through a lock-free {@link SpscQueue}; the parser hands drained batches back
+ * through a second queue, so after start-up no batch is ever allocated. One handoff per
+ * {@link #BATCH_SIZE} tokens keeps the cross-thread traffic low, and within a batch
+ * {@link #next()} is a plain array read.
+ * <pre>
+ *   try (PipelinedLexer tokens = new PipelinedLexer(new Lexer(source, grammar).skipTrivia(new Trivia()))) {
+ *       new Compiler(tokens).parse();
+ *   }
+ * </pre>
+ * A side that finds its queue empty (or full) spins for a while and then parks for a few
+ * microseconds at a time. Anything the lexer throws, exceptions and errors such as a
+ * {@link StackOverflowError} alike, ends the lexer thread's batches and is rethrown by
+ * {@link #next()} at the position where it occurred. The wrapped lexer must not be used directly once
+ * it has been handed to this class.
+ */
+public class PipelinedLexer implements TokenStream, AutoCloseable {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * The number of tokens handed over at a time.
+     */
+    public static final int BATCH_SIZE = 512;
+
+    private static final int BATCHES = 8;
+    private static final int SPINS = 128;
+    private static final long PARK_NANOS = 20_000;
+
+    // ====== INSTANCE FIELDS ====== //
+    private final SpscQueue<Batch> full = new SpscQueue<>(BATCHES);
+    private final SpscQueue<Batch> empty = new SpscQueue<>(BATCHES);
+    private final Thread producer;
+    private volatile boolean closed;
+
+    // consumer state
+    private final RingBuffer<TokenSpan> lookahead = new RingBuffer<>();
+    private Batch batch;
+    private int cursor;
+    private boolean exhausted;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Starts lexing on a new platform thread.
+     *
+     * @param lexer the lexer to run
+     */
+    public PipelinedLexer(Lexer lexer) {
+        this(lexer, false);
+    }
+
+    /**
+     * Starts lexing on a new virtual or platform thread.
+     *
+     * @param lexer   the lexer to run
+     * @param virtual if the lexer should run on a virtual thread
+     */
+    public PipelinedLexer(Lexer lexer, boolean virtual) {
+        for (int i = 0; i < BATCHES; i++) empty.offer(new Batch());
+        Thread.Builder builder = virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        this.producer = builder.name("lexer").start(() -> produce(lexer));
+    }
+
+    // ====== PRODUCER ====== //
+    private void produce(Lexer lexer) {
+        boolean done = false;
+        while (!done) {
+            Batch batch = take(empty);
+            if (batch == null) return;
+            batch.size = 0;
+            batch.error = null;
+            try {
+                while (batch.size < BATCH_SIZE) {
+                    TokenSpan token = lexer.next();
+                    batch.tokens[batch.size++] = token;
+                    if (token.type() == SymbolType.EOF) {
+                        done = true;
+                        break;
+                    }
+                }
+            } catch (Throwable e) {
+                // errors too, or the parser would wait forever for a batch that never comes
+                batch.error = e;
+                done = true;
+            }
+            for (int idle = 0; !full.offer(batch); idle = backOff(idle)) {
+                if (closed) return;
+            }
+        }
+    }
+
+    // ====== CONSUMER ====== //
+
+    /**
+     * Consumes and returns the next token, waiting for the lexer thread if it has fallen behind.
+     *
+     * @return the next token
+     * @throws Exception the exception the lexer threw at this point of the input
+     */
+    @Override
+    public TokenSpan next() throws Exception {
+        // Tokens that were peeked at are handed out first
+        if (!lookahead.isEmpty()) return lookahead.poll();
+        return receive();
+    }
+
+    /**
+     * Returns the token {@code k} places after the one {@link #next()} will return, without consuming anything.
+     *
+     * @param k the distance from the next token, {@code 0} being the next token itself
+     * @return the token, or {@link TokenSpan#EOF} past the end of the input
+     * @throws Exception the exception the lexer threw before reaching that token
+     */
+    @Override
+    public TokenSpan peek(int k) throws Exception {
+        while (lookahead.size() <= k) lookahead.add(receive());
+        return lookahead.peek(k);
+    }
+
+    private TokenSpan receive() throws Exception {
+        if (exhausted) return TokenSpan.EOF;
+        while (batch == null || cursor == batch.size) {
+            if (batch != null) {
+                switch (batch.error) {
+                    case null -> {}
+                    case Exception e -> throw e;
+                    case Error e -> throw e;
+                    default -> throw new IllegalStateException("The lexer thread failed", batch.error);
+                }
+                recycle(batch);
+            }
+            batch = take(full);
+            if (batch == null) throw new IllegalStateException("The pipelined lexer has been closed");
+            cursor = 0;
+        }
+        TokenSpan token = batch.tokens[cursor];
+        batch.tokens[cursor++] = null;
+        if (token.type() == SymbolType.EOF) exhausted = true;
+        return token;
+    }
+
+    private void recycle(Batch batch) {
+        // never blocks, there are only BATCHES batches for a queue of that capacity
+        empty.offer(batch);
+    }
+
+    /**
+     * Stops the lexer thread and waits for it to exit.
+     * <p>
+     * If the calling thread is interrupted while waiting, it stops waiting and its interrupt status is set again.
+     * The lexer thread still exits on its own, since it checks for {@code close} between polls.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ====== HELPERS ====== //
+
+    // Polls queue until it yields an element, or returns null once closed
+    private Batch take(SpscQueue<Batch> queue) {
+        for (int idle = 0; ; idle = backOff(idle)) {
+            Batch batch = queue.poll();
+            if (batch != null) return batch;
+            if (closed) return null;
+        }
+    }
+
+    // Waits between two polls of an empty or full queue: spins at first, then parks
+    private static int backOff(int idle) {
+        if (idle < SPINS) Thread.onSpinWait();
+        else LockSupport.parkNanos(PARK_NANOS);
+        return idle + 1;
+    }
+
+    private static final class Batch {
+        private final TokenSpan[] tokens = new TokenSpan[BATCH_SIZE];
+        private int size;
+        private Throwable error;
+    }
+}
@@ -0,0 +1,48 @@
+package com.viffx.Lang.Compiler;
+
+/**
+ * {@link CharScanner} that checks one character per iteration.
+ * Also finishes the tail of every range the {@link VectorCharScanner} cannot fill a vector with.
+ */
+final class ScalarCharScanner implements CharScanner {
+    static final ScalarCharScanner INSTANCE = new ScalarCharScanner();
+
+    private ScalarCharScanner() {}
+
+    @Override
+    public int skipWhitespace(char[] chars, int from, int to) {
+        int p = from;
+        while (p < to && isAsciiWhitespace(chars[p])) p++;
+        return p;
+    }
+
+    @Override
+    public int skipLettersOrDigits(char[] chars, int from, int to) {
+        int p = from;
+        while (p < to && isAsciiLetterOrDigit(chars[p])) p++;
+        return p;
+    }
+
+    @Override
+    public int indexOf(char[] chars, int from, int to, char c) {
+        int p = from;
+        while (p < to && chars[p] != c) p++;
+        return p;
+    }
+
+    @Override
+    public int indexOfEither(char[] chars, int from, int to, char a, char b) {
+        int p = from;
+        while (p < to && chars[p] != a && chars[p] != b) p++;
+        return p;
+    }
+
+    // ' ' and '\t', '\n', '\u000B', '\f', '\r'
+    static boolean isAsciiWhitespace(char c) {
+        return c == ' ' || (char) (c - '\t') <= '\r' - '\t';
+    }
+
+    static boolean isAsciiLetterOrDigit(char c) {
+        return (char) ((c | 0x20) - 'a') <= 'z' - 'a' || (char) (c - '0') <= '9' - '0';
+    }
+}
@@ -0,0 +1,173 @@
+package com.viffx.Lang.Compiler;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Maps character offsets in a source array to one based lines and columns.
+ *
+ * <p>Tokens, spans and errors only ever record plain offsets; this class turns them into
+ * lines and columns when something has to be shown to a person. The offsets of the line
+ * starts are found with {@link CharScanner#indexOf} on the first query that needs them,
+ * and only as far into the source as that query reaches. Each query is then a binary
+ * search over the line starts found so far.
+ * <pre>
+ *   SourcePositions positions = tokens.positions();
+ *   int line = positions.line(tokens.start(i));
+ *   int column = positions.column(tokens.start(i));
+ * </pre>
+ * A {@link Lexer} gives the positions of the spans it returns the same way, through
+ * {@link Lexer#positions()}. Offsets are indices into the array, so the first line starts
+ * at {@code start}, not at {@code 0}. Instances are not thread safe.
+ */
+public final class SourcePositions {
+    // ====== INSTANCE FIELDS ====== //
+    private final char[] chars;
+    private final int start;
+    private final int end;
+    private final CharScanner charScanner = CharScanner.best();
+
+    // offsets of the lines found so far, and where the search for the next one resumes
+    private int[] lineStarts = new int[16];
+    private int lines;
+    private int scanned;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates the positions of {@code chars[start, end)}. Nothing is scanned until a query needs it.
+     *
+     * @param chars the source array
+     * @param start the offset of the first character of the source
+     * @param end   the offset one past its last character
+     * @throws IndexOutOfBoundsException if the range is not inside {@code chars}
+     */
+    public SourcePositions(char[] chars, int start, int end) {
+        Objects.checkFromToIndex(start, end, chars.length);
+        this.chars = chars;
+        this.start = start;
+        this.end = end;
+        this.lineStarts[lines++] = start;
+        this.scanned = start;
+    }
+
+    /**
+     * Creates the positions of a string.
+     *
+     * @param text the source
+     * @return positions whose offsets are indices into {@code text}
+     */
+    public static SourcePositions of(CharSequence text) {
+        char[] chars = text.toString().toCharArray();
+        return new SourcePositions(chars, 0, chars.length);
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns the line {@code offset} is on.
+     *
+     * @param offset an offset in {@code [start, end]}
+     * @return the one based line
+     * @throws IndexOutOfBoundsException if the offset is outside the source
+     */
+    public int line(int offset) {
+        return lineIndex(offset) + 1;
+    }
+
+    /**
+     * Returns the column of {@code offset} within its line, counted in chars.
+     *
+     * @param offset an offset in {@code [start, end]}
+     * @return the one based column
+     * @throws IndexOutOfBoundsException if the offset is outside the source
+     */
+    public int column(int offset) {
+        return offset - lineStarts[lineIndex(offset)] + 1;
+    }
+
+    /**
+     * Returns the offset of the first character of a line.
+     *
+     * @param line the one based line
+     * @return its offset
+     * @throws IndexOutOfBoundsException if the source has fewer lines
+     */
+    public int lineStart(int line) {
+        while (lines < line && scanned < end) scanLine();
+        Objects.checkIndex(line - 1, lines);
+        return lineStarts[line - 1];
+    }
+
+    /**
+     * Returns the number of lines, which is one more than the number of line breaks. Scans the whole source.
+     *
+     * @return the number of lines
+     */
+    public int lineCount() {
+        while (scanned < end) scanLine();
+        return lines;
+    }
+
+    /**
+     * Returns the array the offsets refer to.
+     *
+     * @return the source array
+     */
+    public char[] source() {
+        return chars;
+    }
+
+    /**
+     * Returns the offset of the first character of the source.
+     *
+     * @return the start offset
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Returns the offset one past the last character of the source.
+     *
+     * @return the end offset
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Describes {@code offset} for an error message.
+     *
+     * @param offset an offset in {@code [start, end]}
+     * @return {@code "line L, column C"}
+     */
+    public String describe(int offset) {
+        int line = lineIndex(offset);
+        return "line " + (line + 1) + ", column " + (offset - lineStarts[line] + 1);
+    }
+
+    // ====== HELPERS ====== //
+
+    // Returns the zero based line of offset, scanning just far enough to know it
+    private int lineIndex(int offset) {
+        if (offset < start || offset > end) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " out of bounds for source [" + start + ", " + end + "]");
+        }
+        while (scanned <= offset && scanned < end) scanLine();
+        int i = Arrays.binarySearch(lineStarts, 0, lines, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    // Finds the next line break and records the line after it
+    private void scanLine() {
+        int n = charScanner.indexOf(chars, scanned, end, '\n');
+        if (n == end) {
+            scanned = end;
+            return;
+        }
+        if (lines == lineStarts.length) lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+        lineStarts[lines++] = n + 1;
+        scanned = n + 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.viffx.Lang.Compiler;
+
+import java.util.Arrays;
+
+/**
+ * The LR states found by {@link LALR1ParseTableGenerator}, numbered in the order they were found,
+ * with an open-addressing hash table from each {@link Kernel} to its number.
+ *
+ * <p>Slots are probed linearly from the low bits of the kernel's fingerprint. Each slot holds the
+ * fingerprint next to the state number, so a probe only touches a kernel's items when the full 64
+ * bits match. The table is kept at most half full.
+ */
+final class StateTable {
+    // ====== CONSTANTS ====== //
+    private static final int INITIAL_CAPACITY = 64;
+
+    // ====== INSTANCE FIELDS ====== //
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+    private int[] slots = new int[INITIAL_CAPACITY];    // state number plus one, 0 for an empty slot
+    private Kernel[] kernels = new Kernel[INITIAL_CAPACITY / 2];
+    private int size;
+
+    // ====== STATES ====== //
+
+    // The number of the state with this kernel, which is size() before the call if it is new
+    int intern(Kernel kernel) {
+        int mask = slots.length - 1;
+        int slot = (int) kernel.fingerprint() & mask;
+        while (slots[slot] != 0) {
+            if (fingerprints[slot] == kernel.fingerprint() && kernels[slots[slot] - 1].sameItems(kernel)) return slots[slot] - 1;
+            slot = slot + 1 & mask;
+        }
+
+        int state = size++;
+        if (state == kernels.length) kernels = Arrays.copyOf(kernels, state * 2);
+        kernels[state] = kernel;
+        fingerprints[slot] = kernel.fingerprint();
+        slots[slot] = state + 1;
+        if (size * 2 > slots.length) grow();
+        return state;
+    }
+
+    Kernel kernel(int state) {
+        return kernels[state];
+    }
+
+    int size() {
+        return size;
+    }
+
+    // ====== HELPERS ====== //
+
+    private void grow() {
+        long[] oldFingerprints = fingerprints;
+        int[] oldSlots = slots;
+        fingerprints = new long[oldSlots.length * 2];
+        slots = new int[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] == 0) continue;
+            int slot = (int) oldFingerprints[i] & mask;
+            while (slots[slot] != 0) slot = slot + 1 & mask;
+            fingerprints[slot] = oldFingerprints[i];
+            slots[slot] = oldSlots[i];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.viffx.Lang.Compiler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Dense sets of symbol indices for {@link LALR1ParseTableGenerator}, one bit per symbol packed
+ * into {@code long[]} words, so a union is a word-wise OR instead of boxing every terminal.
+ *
+ * <p>The static methods work on any {@code long[]} set, and {@link #or(long[], long[])} updates
+ * one in place. The instance methods hand out hash-consed sets: every set they return is the one
+ * canonical instance for its contents, shared by everything holding that set, and must not be
+ * modified. Lookahead sets repeat heavily ({@code {EOF}} alone is the set of most items in a
+ * small grammar), so each distinct set is stored once, and a union that adds nothing returns
+ * its first argument without allocating.
+ */
+final class SymbolSets {
+    // ====== INSTANCE FIELDS ====== //
+    private final int words;
+    private final HashMap<Key, long[]> canonical = new HashMap<>();
+    private final long[] empty;
+
+    // Arrays compare by identity, so the table is keyed by their contents
+    private record Key(long[] set) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Arrays.equals(set, key.set);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(set);
+        }
+    }
+
+    // ====== CONSTRUCTORS ====== //
+    SymbolSets(int symbolCount) {
+        this.words = (symbolCount + 63) >>> 6;
+        this.empty = intern(new long[words]);
+    }
+
+    // ====== HASH-CONSED SETS ====== //
+
+    // A new, mutable empty set
+    long[] create() {
+        return new long[words];
+    }
+
+    long[] empty() {
+        return empty;
+    }
+
+    // The canonical instance with the contents of set, which must not be modified afterwards
+    long[] intern(long[] set) {
+        long[] existing = canonical.putIfAbsent(new Key(set), set);
+        return existing == null ? set : existing;
+    }
+
+    // The canonical set a ∪ {symbol}, a itself if it already holds symbol
+    long[] with(long[] a, int symbol) {
+        if (contains(a, symbol)) return a;
+        long[] result = a.clone();
+        result[symbol >>> 6] |= 1L << symbol;
+        return intern(result);
+    }
+
+    // The canonical set a ∪ b, a itself if b adds nothing to it
+    long[] union(long[] a, long[] b) {
+        if (containsAll(a, b)) return a;
+        long[] result = a.clone();
+        or(result, b);
+        return intern(result);
+    }
+
+    // The number of distinct sets handed out so far
+    int size() {
+        return canonical.size();
+    }
+
+    // ====== SET OPERATIONS ====== //
+
+    static boolean contains(long[] set, int symbol) {
+        return (set[symbol >>> 6] & 1L << symbol) != 0;
+    }
+
+    // Adds symbol to a mutable set, returning if it was missing
+    static boolean add(long[] set, int symbol) {
+        long word = set[symbol >>> 6];
+        set[symbol >>> 6] = word | 1L << symbol;
+        return (word & 1L << symbol) == 0;
+    }
+
+    // ORs from into a mutable set word by word, returning if any bit was added
+    static boolean or(long[] into, long[] from) {
+        long added = 0;
+        for (int i = 0; i < into.length; i++) {
+            long word = into[i];
+            added |= from[i] & ~word;
+            into[i] = word | from[i];
+        }
+        return added != 0;
+    }
+
+    static boolean containsAll(long[] set, long[] subset) {
+        for (int i = 0; i < set.length; i++) {
+            if ((subset[i] & ~set[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    static boolean isEmpty(long[] set) {
+        for (long word : set) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    // The smallest symbol in set at or after from, or -1, for iterating like BitSet.nextSetBit
+    static int next(long[] set, int from) {
+        int i = from >>> 6;
+        if (i >= set.length) return -1;
+        long word = set[i] & -1L << from;
+        while (true) {
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == set.length) return -1;
+            word = set[i];
+        }
+    }
+}
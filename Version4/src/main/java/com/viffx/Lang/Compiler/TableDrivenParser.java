@@ -0,0 +1,144 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Grammar.ProductionShape;
+import com.viffx.Lang.Symbols.AstNode;
+import com.viffx.Lang.Symbols.SymbolType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An LR parser that interprets the parse table directly instead of compiling it to Java
+ * like {@link ParserGenerator} does for {@link Compiler}.
+ *
+ * <p>The table produced by {@link LALR1ParseTableGenerator} is flattened into one
+ * {@code int[]} indexed by {@code state * symbolCount + symbol}, and the input is read
+ * by index from a {@link TokenTable}, so the driver loop does no hashing and no
+ * {@code equals} calls. Trees are built the same way the generated {@link Compiler}
+ * builds them, which is the order {@link ParserGenerator#printAST(AstNode)} expects.
+ */
+public class TableDrivenParser {
+    // ====== CONSTANTS ====== //
+    // The low two bits of an entry are the action, the rest is its target state or production
+    private static final int ERROR = 0;
+    private static final int SHIFT = 1; // also used for GOTO entries, which are only found in non-terminal columns
+    private static final int REDUCE = 2;
+    private static final int ACCEPT = 3;
+
+    // ====== INSTANCE FIELDS ====== //
+    private final Grammar grammar;
+    private final TerminalIds terminals;
+    private final int symbolCount;
+    private final int[] table;
+    private final int[] lhs;
+    private final int[] rhsLength;
+    // null when every production is PLAIN, as it is unless the grammar came from eliminateRightRecursion
+    private final ProductionShape[] shapes;
+
+    // ====== CONSTRUCTORS ====== //
+    public TableDrivenParser(Grammar grammar, List<HashMap<Integer, Action>> parseTable) {
+        this.grammar = grammar;
+        this.terminals = new TerminalIds(grammar);
+        this.symbolCount = grammar.symbolCount();
+
+        this.table = new int[parseTable.size() * symbolCount];
+        for (int state = 0; state < parseTable.size(); state++) {
+            for (var entry : parseTable.get(state).entrySet()) {
+                Action action = entry.getValue();
+                table[state * symbolCount + entry.getKey()] = switch (action.type()) {
+                    case SHIFT, GOTO -> action.data() << 2 | SHIFT;
+                    case REDUCE -> action.data() << 2 | REDUCE;
+                    case ACCEPT -> ACCEPT;
+                };
+            }
+        }
+
+        this.lhs = new int[grammar.productionsCount()];
+        this.rhsLength = new int[grammar.productionsCount()];
+        for (int i = 0; i < lhs.length; i++) {
+            lhs[i] = grammar.lhs(i);
+            rhsLength[i] = grammar.length(i);
+        }
+
+        ProductionShape[] shapes = new ProductionShape[lhs.length];
+        boolean lists = false;
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = grammar.shape(i);
+            lists |= shapes[i] != ProductionShape.PLAIN;
+        }
+        this.shapes = lists ? shapes : null;
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Parses {@code tokens} from the first row to the {@code EOF} row.
+     *
+     * @param tokens the tokenized input, resolved against the same grammar as this parser
+     * @return the root of the tree
+     * @throws Exception if the input does not match the grammar
+     */
+    public AstNode parse(TokenTable tokens) throws Exception {
+        int[] states = new int[64];
+        int top = 0;
+        List<AstNode> ast = new ArrayList<>();
+
+        int i = 0;
+        while (true) {
+            int state = states[top];
+            int action = action(state, tokens, i);
+            switch (action & 3) {
+                case SHIFT -> {
+                    if (++top == states.length) states = Arrays.copyOf(states, top * 2);
+                    states[top] = action >>> 2;
+                    ast.add(new AstNode(tokens.span(i++)));
+                }
+                case REDUCE -> {
+                    int production = action >>> 2;
+                    AstNode node;
+                    if (shapes == null || shapes[production] == ProductionShape.PLAIN) {
+                        node = new AstNode(grammar.symbol(lhs[production]));
+                        for (int n = 0; n < rhsLength[production]; n++) {
+                            node.add(ast.removeLast());
+                        }
+                    } else {
+                        // a list production, which keeps one node per list on the stack
+                        node = ListTrees.reduce(ast, grammar.symbol(lhs[production]), grammar.symbol(grammar.element(production)), rhsLength[production], shapes[production]);
+                    }
+                    ast.add(node);
+                    top -= rhsLength[production];
+
+                    // Now do GOTO based on state under top
+                    int target = table[states[top] * symbolCount + lhs[production]];
+                    if (target == ERROR) throw new Exception("state" + states[top] + " has no goto for " + node.symbol());
+                    if (++top == states.length) states = Arrays.copyOf(states, top * 2);
+                    states[top] = target >>> 2;
+                }
+                case ACCEPT -> {
+                    return ast.getLast();
+                }
+                default -> throw new Exception("Parse error in state" + state + ": " + tokens.span(i) + " at " + describe(tokens, i));
+            }
+        }
+    }
+
+    // Line and column of token i, the end of the source for the EOF row
+    private static String describe(TokenTable tokens, int i) {
+        SourcePositions positions = tokens.positions();
+        return positions.describe(tokens.type(i) == SymbolType.EOF ? positions.end() : tokens.start(i));
+    }
+
+    // Looks up the action for token i, falling back to the wildcard terminal of its type
+    private int action(int state, TokenTable tokens, int i) {
+        int symbol = tokens.symbol(i);
+        int action = symbol == TokenTable.NO_SYMBOL ? ERROR : table[state * symbolCount + symbol];
+        if (action == ERROR) {
+            int wildcard = terminals.wildcard(tokens.type(i));
+            if (wildcard != TokenTable.NO_SYMBOL && wildcard != symbol) action = table[state * symbolCount + wildcard];
+        }
+        return action;
+    }
+}
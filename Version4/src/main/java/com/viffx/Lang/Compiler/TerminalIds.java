@@ -0,0 +1,61 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.Symbol;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps scanned tokens to the ids of the grammar terminals they match, straight out of the source array.
+ *
+ * <p>Terminals with a value ({@code SYM(=)}, {@code KEY(var)}) are looked up with one
+ * {@link KeywordMatcher} per token type. Terminals without one ({@code NUM()}) are wildcards
+ * that match every token of their type; {@link #exact} falls back to them when the text
+ * matches nothing more specific.
+ */
+final class TerminalIds {
+    private static final SymbolType[] TYPES = SymbolType.values();
+
+    private final KeywordMatcher[] matchers = new KeywordMatcher[TYPES.length];
+    private final int[][] matcherIds = new int[TYPES.length][];
+    private final int[] wildcards = new int[TYPES.length];
+
+    TerminalIds(Grammar grammar) {
+        Arrays.fill(wildcards, TokenTable.NO_SYMBOL);
+        Map<SymbolType, Map<String, Integer>> values = new HashMap<>();
+        for (int id = 0; id < grammar.symbolCount(); id++) {
+            Symbol symbol = grammar.symbol(id);
+            if (!(symbol instanceof Terminal terminal) || terminal.type() == null) continue;
+            if (terminal.value() == null) wildcards[terminal.type().ordinal()] = id;
+            else values.computeIfAbsent(terminal.type(), _ -> new HashMap<>()).put(terminal.lexeme(), id);
+        }
+        values.forEach((type, ids) -> {
+            KeywordMatcher matcher = KeywordMatcher.of(ids.keySet());
+            int[] matcherId = new int[matcher.size()];
+            for (int i = 0; i < matcherId.length; i++) matcherId[i] = ids.get(matcher.keyword(i));
+            matchers[type.ordinal()] = matcher;
+            matcherIds[type.ordinal()] = matcherId;
+        });
+    }
+
+    /* Returns the id of the terminal matching the token chars[from, to) of the given type.
+     * Prefers a terminal with exactly that value over the wildcard of the type, returns NO_SYMBOL if neither exists.
+     */
+    int exact(SymbolType type, char[] chars, int from, int to) {
+        KeywordMatcher matcher = matchers[type.ordinal()];
+        if (matcher != null) {
+            int match = matcher.match(chars, from, to);
+            if (match >= 0) return matcherIds[type.ordinal()][match];
+        }
+        return wildcards[type.ordinal()];
+    }
+
+    // Returns the id of the wildcard terminal of the given type, or NO_SYMBOL
+    int wildcard(SymbolType type) {
+        return wildcards[type.ordinal()];
+    }
+}
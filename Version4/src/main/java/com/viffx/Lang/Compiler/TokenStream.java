@@ -0,0 +1,37 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Symbols.TokenSpan;
+
+/**
+ * A source of tokens for a parser, read one at a time with arbitrary lookahead.
+ * Implemented by {@link Lexer}, which scans on the caller's thread, and by
+ * {@link PipelinedLexer}, which scans ahead on a thread of its own.
+ */
+public interface TokenStream {
+    /**
+     * Consumes and returns the next token. Returns {@link TokenSpan#EOF} once the input is exhausted.
+     *
+     * @return the next token
+     * @throws Exception if the input cannot be tokenized
+     */
+    TokenSpan next() throws Exception;
+
+    /**
+     * Returns the token {@code k} places after the one {@link #next()} will return, without consuming anything.
+     *
+     * @param k the distance from the next token, {@code 0} being the next token itself
+     * @return the token, or {@link TokenSpan#EOF} past the end of the input
+     * @throws Exception if the input cannot be tokenized
+     */
+    TokenSpan peek(int k) throws Exception;
+
+    /**
+     * Returns the token {@link #next()} will return, without consuming it.
+     *
+     * @return the next token
+     * @throws Exception if the input cannot be tokenized
+     */
+    default TokenSpan peek() throws Exception {
+        return peek(0);
+    }
+}
@@ -0,0 +1,505 @@
+package com.viffx.Lang.Compiler;
+
+import com.viffx.Lang.Grammar.Grammar;
+import com.viffx.Lang.Symbols.Name;
+import com.viffx.Lang.Symbols.NameInterner;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.TokenSpan;
+import com.viffx.Lang.Utils.CharArena;
+import com.viffx.Lang.Utils.Literals;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A whole source file tokenized in one pass, stored column by column.
+ *
+ * <p>Row {@code i} is the {@code i}-th token: the id of the grammar terminal it matches,
+ * its {@link SymbolType} and the {@code [start, start + length)} range of {@link #source()}
+ * holding its text. The columns are plain {@code int[]}/{@code byte[]} arrays, so building
+ * the table allocates nothing per token and parsers walk it by index:
+ * <pre>
+ *   TokenTable tokens = TokenTable.tokenize(new Lexer(source, grammar), grammar);
+ *   for (int i = 0; i &lt; tokens.size(); i++) {
+ *       int terminal = tokens.symbol(i);
+ *       ...
+ *   }
+ * </pre>
+ * Comments are dropped, and the last row is always the {@code EOF} token.
+ *
+ * <p>Literals are decoded as they are added. {@code NUM} tokens are parsed with
+ * {@link Literals} into a {@code long} column, holding either the integer or the bits of
+ * the {@code double}; {@code STR} and {@code CHR} tokens with escape sequences are decoded
+ * into one {@link CharArena} per table, and those without are their own decoded text.
+ * {@link #longValue}, {@link #doubleValue}, {@link #decoded} and {@link #charValue} read
+ * these columns without looking at the source again. Boxed payloads are kept in a side
+ * array that is only filled when {@link #payload(int)} asks for them.
+ *
+ * <p>When the lexer interns names, {@code ID} tokens are interned as they are added and the
+ * value column holds the id of their {@link Name}, which {@link #name(int)} returns.
+ */
+public final class TokenTable {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * Symbol id of tokens that match no terminal of the grammar.
+     */
+    public static final int NO_SYMBOL = -1;
+
+    private static final SymbolType[] TYPES = SymbolType.values();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // How the value column of a row is to be read
+    private static final byte NOT_LITERAL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte FLOATING = 2;
+    private static final byte MALFORMED = 3;
+    private static final byte VERBATIM = 4;
+    private static final byte ESCAPED = 5;
+    private static final byte NAME = 6;
+
+    // ====== COLUMNS ====== //
+    private char[] source = new char[0];
+    private int size;
+    private int[] symbols = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private byte[] literals = new byte[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private CharArena arena = new CharArena();
+    private int arenaGarbage;   // characters of the arena no row refers to any more
+    private Object[] payloads = new Object[0];
+    private SourcePositions positions;
+    private NameInterner names;
+
+    // ====== CONSTRUCTORS ====== //
+
+    // An empty table without an EOF row, filled with add() by the lexers of this package
+    TokenTable() {}
+
+    /**
+     * Lexes everything left in {@code lexer} into a table.
+     * <p>
+     * Tokens are resolved to the ids of the terminals of {@code grammar} they match; a
+     * terminal with the exact value of the token wins over a wildcard such as {@code NUM()}.
+     *
+     * @param lexer   the lexer to drain
+     * @param grammar the grammar whose terminal ids are recorded
+     * @return the table
+     * @throws RuntimeException if the lexer fails
+     */
+    public static TokenTable tokenize(Lexer lexer, Grammar grammar) {
+        return tokenize(lexer, new TerminalIds(grammar), grammar.EOF());
+    }
+
+    static TokenTable tokenize(Lexer lexer, TerminalIds ids, int eof) {
+        TokenTable table = new TokenTable();
+        table.names = lexer.names();
+
+        // Tokens the lexer has already been asked to peek at come first
+        for (TokenSpan span = lexer.pollLookahead(); span != null; span = lexer.pollLookahead()) {
+            if (span.type() == SymbolType.COMMENT || span.type() == SymbolType.EOF) continue;
+            table.add(ids.exact(span.type(), span.source(), span.start(), span.end()), span.type(), span.source(), span.start(), span.length());
+        }
+        while (true) {
+            SymbolType type = lexer.advance();
+            if (type == SymbolType.COMMENT) continue;
+            if (type == SymbolType.EOF) break;
+            char[] chars = lexer.source();
+            int from = lexer.tokenStart(), to = lexer.tokenEnd();
+            table.add(ids.exact(type, chars, from, to), type, chars, from, to - from);
+        }
+
+        // The window only ever grows, so its final array holds the text of every earlier token
+        table.source = lexer.source();
+        table.positions = lexer.positions();
+        table.add(eof, SymbolType.EOF, null, 0, 0);
+        table.payloads = new Object[table.size];
+        return table;
+    }
+
+    /* Joins tables lexed from consecutive slices of a source into one, in order.
+     * The offsets of every part must already refer to the array of positions. The EOF row of each part is dropped and one is added at the end.
+     */
+    static TokenTable concat(TokenTable[] parts, SourcePositions positions, int eof) {
+        int size = 1;
+        for (TokenTable part : parts) size += part.size - 1;
+
+        TokenTable table = new TokenTable();
+        table.source = positions.source();
+        table.positions = positions;
+        table.names = parts.length > 0 ? parts[0].names : null;
+        table.symbols = new int[size];
+        table.types = new byte[size];
+        table.starts = new int[size];
+        table.lengths = new int[size];
+        table.literals = new byte[size];
+        table.values = new long[size];
+        for (TokenTable part : parts) table.copy(part, 0, part.size - 1);
+        table.add(eof, SymbolType.EOF, null, 0, 0);
+        table.payloads = new Object[table.size];
+        return table;
+    }
+
+    /* Replaces rows [from, to) in place by the rows of middle, which has no EOF row, and moves the starts of the rows after them by delta.
+     * The rows after the edit are moved with one array copy per column and keep the literal payloads already materialized for them.
+     */
+    void replace(int from, int to, TokenTable middle, int delta, SourcePositions positions) {
+        int previous = size;
+        int tail = size - to;
+        int resized = from + middle.size + tail;
+        if (resized > symbols.length) {
+            int capacity = Math.max(resized, symbols.length * 2);
+            symbols = Arrays.copyOf(symbols, capacity);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            literals = Arrays.copyOf(literals, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        if (payloads.length < symbols.length) payloads = Arrays.copyOf(payloads, symbols.length);
+        for (int i = from; i < to; i++) {
+            if (literals[i] == ESCAPED) arenaGarbage += (int) values[i];
+        }
+
+        int moved = from + middle.size;
+        System.arraycopy(symbols, to, symbols, moved, tail);
+        System.arraycopy(types, to, types, moved, tail);
+        System.arraycopy(starts, to, starts, moved, tail);
+        System.arraycopy(lengths, to, lengths, moved, tail);
+        System.arraycopy(literals, to, literals, moved, tail);
+        System.arraycopy(values, to, values, moved, tail);
+        System.arraycopy(payloads, to, payloads, moved, tail);
+        // the EOF row has no position
+        for (int i = moved; i < resized - 1; i++) starts[i] += delta;
+
+        size = from;
+        copy(middle, 0, middle.size);
+        Arrays.fill(payloads, from, moved, null);
+        if (resized < previous) Arrays.fill(payloads, resized, previous, null);
+        size = resized;
+        this.source = positions.source();
+        this.positions = positions;
+        if (arenaGarbage > arena.size() / 2) compactArena();
+    }
+
+    /* Moves the decoded text of every row into a fresh arena, dropping the text of rows replaced since the last time.
+     * Only done once at least half the arena is garbage, so re-lexing stays linear in what is re-lexed.
+     * Views decoded() returned before keep the old array and stay valid.
+     */
+    private void compactArena() {
+        CharArena compacted = new CharArena(arena.size() - arenaGarbage);
+        for (int i = 0; i < size; i++) {
+            if (literals[i] != ESCAPED) continue;
+            int decoded = (int) (values[i] >>> 32), length = (int) values[i];
+            values[i] = (long) compacted.size() << 32 | length;
+            compacted.append(arena.array(), decoded, decoded + length);
+        }
+        arena = compacted;
+        arenaGarbage = 0;
+    }
+
+    // Appends rows [from, from + n) of other, which must fit. Text other decoded into its arena is moved into this one.
+    private void copy(TokenTable other, int from, int n) {
+        System.arraycopy(other.symbols, from, symbols, size, n);
+        System.arraycopy(other.types, from, types, size, n);
+        System.arraycopy(other.starts, from, starts, size, n);
+        System.arraycopy(other.lengths, from, lengths, size, n);
+        System.arraycopy(other.literals, from, literals, size, n);
+        System.arraycopy(other.values, from, values, size, n);
+        if (other.names != names) {
+            // ids of another interner mean nothing here, name(i) interns those rows again when asked
+            for (int i = size; i < size + n; i++) {
+                if (literals[i] == NAME) literals[i] = NOT_LITERAL;
+            }
+        }
+        if (other.arena != arena) {
+            for (int i = size; i < size + n; i++) {
+                if (literals[i] != ESCAPED) continue;
+                int offset = arena.size(), length = (int) values[i];
+                int decoded = (int) (values[i] >>> 32);
+                arena.append(other.arena.array(), decoded, decoded + length);
+                values[i] = (long) offset << 32 | length;
+            }
+        }
+        size += n;
+    }
+
+    // Returns the first row before the EOF row whose token starts at or after offset, or the EOF row if there is none
+    int firstAtOrAfter(int offset) {
+        int low = 0, high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Appends a row for the token chars[start, start + length), decoding it if it is a literal
+    void add(int symbol, SymbolType type, char[] chars, int start, int length) {
+        if (size == symbols.length) {
+            int capacity = size * 2;
+            symbols = Arrays.copyOf(symbols, capacity);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            literals = Arrays.copyOf(literals, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        symbols[size] = symbol;
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        literals[size] = NOT_LITERAL;
+        values[size] = 0;
+        switch (type) {
+            case NUM -> decodeNumber(chars, start, start + length);
+            case STR, CHR -> decodeText(chars, start, start + length);
+            case ID -> {
+                if (names != null) {
+                    values[size] = names.intern(chars, start, start + length).id();
+                    literals[size] = NAME;
+                }
+            }
+            default -> {}
+        }
+        size++;
+    }
+
+    private void decodeNumber(char[] chars, int from, int to) {
+        try {
+            if (Literals.isIntegral(chars, from, to)) {
+                values[size] = Literals.parseLong(chars, from, to);
+                literals[size] = INTEGER;
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // too large for a long, a decimal integer is still a double
+        }
+        try {
+            values[size] = Double.doubleToRawLongBits(Literals.parseDouble(chars, from, to));
+            literals[size] = FLOATING;
+        } catch (NumberFormatException e) {
+            // such as 12abc, which lexes as one NUM token; reported when its value is asked for
+            literals[size] = MALFORMED;
+        }
+    }
+
+    private void decodeText(char[] chars, int from, int to) {
+        if (!Literals.hasEscapes(chars, from, to)) {
+            literals[size] = VERBATIM;
+            return;
+        }
+        int offset = arena.size();
+        int length = Literals.unescape(chars, from, to, arena);
+        values[size] = (long) offset << 32 | length;
+        literals[size] = ESCAPED;
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns the number of tokens, including the final {@code EOF} token.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of the grammar terminal token {@code i} matches.
+     *
+     * @param i the index of the token
+     * @return the terminal id, or {@link #NO_SYMBOL}
+     */
+    public int symbol(int i) {
+        Objects.checkIndex(i, size);
+        return symbols[i];
+    }
+
+    /**
+     * Returns the type of token {@code i}.
+     *
+     * @param i the index of the token
+     * @return the token type
+     */
+    public SymbolType type(int i) {
+        Objects.checkIndex(i, size);
+        return TYPES[types[i]];
+    }
+
+    /**
+     * Returns the index in {@link #source()} of the first character of token {@code i}.
+     *
+     * @param i the index of the token
+     * @return the start offset
+     */
+    public int start(int i) {
+        Objects.checkIndex(i, size);
+        return starts[i];
+    }
+
+    /**
+     * Returns the number of characters in token {@code i}.
+     *
+     * @param i the index of the token
+     * @return the length
+     */
+    public int length(int i) {
+        Objects.checkIndex(i, size);
+        return lengths[i];
+    }
+
+    /**
+     * Returns the array the offsets of this table refer to.
+     *
+     * @return the source text
+     */
+    public char[] source() {
+        return source;
+    }
+
+    /**
+     * Returns the lines and columns of the offsets of this table.
+     *
+     * @return the positions of {@link #source()}
+     */
+    public SourcePositions positions() {
+        return positions;
+    }
+
+    /**
+     * Returns the text of token {@code i}. Allocates a new string on every call, except for interned names.
+     *
+     * @param i the index of the token
+     * @return the text
+     */
+    public String text(int i) {
+        if (type(i) == SymbolType.EOF) return TokenSpan.EOF.value();
+        if (literals[i] == NAME) return names.name((int) values[i]).text();
+        return new String(source, starts[i], lengths[i]);
+    }
+
+    /**
+     * Returns if token {@code i} is a {@code NUM} written as an integer that fits in a {@code long}.
+     *
+     * @param i the index of the token
+     * @return if {@link #longValue(int)} can be called
+     */
+    public boolean isIntegral(int i) {
+        Objects.checkIndex(i, size);
+        return literals[i] == INTEGER;
+    }
+
+    /**
+     * Returns the value of an integer {@code NUM} token.
+     *
+     * @param i the index of the token
+     * @return the decoded value
+     * @throws NumberFormatException if the token is not an integer literal that fits in a {@code long}
+     */
+    public long longValue(int i) {
+        if (!isIntegral(i)) throw new NumberFormatException("Not an integer literal: " + text(i));
+        return values[i];
+    }
+
+    /**
+     * Returns the value of a {@code NUM} token, integer or floating.
+     *
+     * @param i the index of the token
+     * @return the decoded value
+     * @throws NumberFormatException if the token is not a number literal
+     */
+    public double doubleValue(int i) {
+        Objects.checkIndex(i, size);
+        return switch (literals[i]) {
+            case INTEGER -> values[i];
+            case FLOATING -> Double.longBitsToDouble(values[i]);
+            default -> throw new NumberFormatException("Not a number literal: " + text(i));
+        };
+    }
+
+    /**
+     * Returns the text of a {@code STR} or {@code CHR} token with its escape sequences decoded,
+     * as a view of the source or of the table's arena. Nothing is copied.
+     *
+     * @param i the index of the token
+     * @return the decoded text
+     * @throws IllegalArgumentException if the token is not a string or character literal
+     */
+    public CharSequence decoded(int i) {
+        Objects.checkIndex(i, size);
+        return switch (literals[i]) {
+            case VERBATIM -> CharBuffer.wrap(source, starts[i], lengths[i]).asReadOnlyBuffer();
+            case ESCAPED -> CharBuffer.wrap(arena.array(), (int) (values[i] >>> 32), (int) values[i]).asReadOnlyBuffer();
+            default -> throw new IllegalArgumentException("Not a string or character literal: " + text(i));
+        };
+    }
+
+    /**
+     * Returns the decoded value of a {@code CHR} token, or of any literal that decodes to one character.
+     *
+     * @param i the index of the token
+     * @return the character
+     * @throws IllegalArgumentException if the token does not decode to exactly one character
+     */
+    public char charValue(int i) {
+        CharSequence text = decoded(i);
+        if (text.length() != 1) throw new IllegalArgumentException("Not a single character: " + text(i));
+        return text.charAt(0);
+    }
+
+    /**
+     * Returns the value of a literal token, boxed on the first call and kept in the side array afterward.
+     *
+     * @param i the index of the token
+     * @return a {@code Long} or {@code Double} for a {@code NUM} token (its text if it is malformed),
+     *         the decoded {@code String} for a {@code STR} or {@code CHR} token, {@code null} for any other token
+     */
+    public Object payload(int i) {
+        Objects.checkIndex(i, size);
+        Object payload = payloads[i];
+        if (payload == null) {
+            payload = switch (literals[i]) {
+                case INTEGER -> values[i];
+                case FLOATING -> Double.longBitsToDouble(values[i]);
+                case MALFORMED -> text(i);
+                case VERBATIM, ESCAPED -> decoded(i).toString();
+                default -> null;
+            };
+            payloads[i] = payload;
+        }
+        return payload;
+    }
+
+    /**
+     * Returns the canonical name of an {@code ID} token.
+     *
+     * @param i the index of the token
+     * @return its name, or {@code null} if the token is not an {@code ID} or its lexer did not intern names
+     */
+    public Name name(int i) {
+        Objects.checkIndex(i, size);
+        if (names == null || types[i] != SymbolType.ID.ordinal()) return null;
+        if (literals[i] == NAME) return names.name((int) values[i]);
+        Name name = names.intern(source, starts[i], starts[i] + lengths[i]);
+        values[i] = name.id();
+        literals[i] = NAME;
+        return name;
+    }
+
+    /**
+     * Returns token {@code i} as a {@link TokenSpan}, for consumers that still work on symbols.
+     *
+     * @param i the index of the token
+     * @return a span over the token's text
+     */
+    public TokenSpan span(int i) {
+        if (type(i) == SymbolType.EOF) return TokenSpan.EOF;
+        return new TokenSpan(type(i), source, starts[i], lengths[i], name(i));
+    }
+}
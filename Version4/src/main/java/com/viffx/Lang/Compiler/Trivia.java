@@ -0,0 +1,154 @@
+package com.viffx.Lang.Compiler;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The side channel a {@link Lexer} records skipped comments, and optionally whitespace, in.
+ *
+ * <p>A lexer given a {@code Trivia} through {@link Lexer#skipTrivia(Trivia)} never returns
+ * {@code COMMENT} tokens: it skips comments as it skips whitespace and only appends their
+ * offset ranges here, so a parser never sees them and nothing is allocated per comment.
+ * Tools that need the comments, such as formatters and doc extractors, turn ranges into
+ * text with {@link #text(int)} when they ask for it.
+ * <pre>
+ *   Trivia trivia = new Trivia();
+ *   new Compiler(new Lexer(source, grammar).skipTrivia(trivia)).parse();
+ *   for (int i = 0; i &lt; trivia.size(); i++) System.out.println(trivia.text(i));
+ * </pre>
+ * Ranges are recorded in source order. The range of a comment excludes its {@code #}
+ * delimiters, like the text of a {@code COMMENT} token. Whitespace is recorded as the whole
+ * run between two tokens; the {@code SYM(\n)} token a run with a line break produces is still
+ * returned by the lexer.
+ */
+public final class Trivia {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * The kinds of skipped text.
+     */
+    public enum Kind {
+        COMMENT,
+        WHITESPACE,
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    // ====== INSTANCE FIELDS ====== //
+    private final boolean whitespace;
+    private char[] source = new char[0];
+    private int size;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates a channel that records comments only.
+     */
+    public Trivia() {
+        this(false);
+    }
+
+    /**
+     * Creates a channel that records comments and, if asked to, whitespace runs.
+     *
+     * @param whitespace if whitespace runs should be recorded too
+     */
+    public Trivia(boolean whitespace) {
+        this.whitespace = whitespace;
+    }
+
+    // Appends source[start, end). source is the lexer's current array, which holds every earlier range as well.
+    void add(Kind kind, char[] source, int start, int end) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+        this.source = source;
+        starts[size] = start;
+        ends[size] = end;
+        kinds[size] = (byte) kind.ordinal();
+        size++;
+    }
+
+    // If the lexer should record whitespace runs
+    boolean recordsWhitespace() {
+        return whitespace;
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns the number of recorded ranges.
+     *
+     * @return the number of ranges
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns what range {@code i} skipped.
+     *
+     * @param i the index of the range
+     * @return its kind
+     */
+    public Kind kind(int i) {
+        Objects.checkIndex(i, size);
+        return KINDS[kinds[i]];
+    }
+
+    /**
+     * Returns the index in {@link #source()} of the first character of range {@code i}.
+     *
+     * @param i the index of the range
+     * @return the start offset
+     */
+    public int start(int i) {
+        Objects.checkIndex(i, size);
+        return starts[i];
+    }
+
+    /**
+     * Returns the index in {@link #source()} one past the last character of range {@code i}.
+     *
+     * @param i the index of the range
+     * @return the end offset
+     */
+    public int end(int i) {
+        Objects.checkIndex(i, size);
+        return ends[i];
+    }
+
+    /**
+     * Returns the array the offsets refer to.
+     *
+     * @return the source text as read so far
+     */
+    public char[] source() {
+        return source;
+    }
+
+    /**
+     * Returns the text of range {@code i}. Allocates a new string on every call.
+     *
+     * @param i the index of the range
+     * @return the text
+     */
+    public String text(int i) {
+        Objects.checkIndex(i, size);
+        return new String(source, starts[i], ends[i] - starts[i]);
+    }
+
+    /**
+     * Forgets every recorded range.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,74 @@
+package com.viffx.Lang.Compiler;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.UNSIGNED_LE;
+
+/**
+ * {@link CharScanner} that classifies {@link #LANES} characters per iteration with
+ * {@code jdk.incubator.vector}.
+ *
+ * <p>Each iteration loads a {@link ShortVector} straight out of the {@code char[]},
+ * builds a mask of the characters that stop the search and returns the index of its
+ * first set lane. Ranges are tested with a single unsigned compare
+ * ({@code c - low <= high - low}). Whatever is left after the last full vector is
+ * handed to {@link ScalarCharScanner}.
+ *
+ * <p>Only loaded when the {@code jdk.incubator.vector} module is present; see {@link CharScanner#best()}.
+ */
+final class VectorCharScanner implements CharScanner {
+    static final VectorCharScanner INSTANCE = new VectorCharScanner();
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    static final int LANES = SPECIES.length();
+
+    private VectorCharScanner() {}
+
+    @Override
+    public int skipWhitespace(char[] chars, int from, int to) {
+        int p = from;
+        for (int bound = from + SPECIES.loopBound(to - from); p < bound; p += LANES) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, chars, p);
+            VectorMask<Short> whitespace = v.compare(EQ, (short) ' ')
+                    .or(v.sub((short) '\t').compare(UNSIGNED_LE, (short) ('\r' - '\t')));
+            if (!whitespace.allTrue()) return p + whitespace.not().firstTrue();
+        }
+        return ScalarCharScanner.INSTANCE.skipWhitespace(chars, p, to);
+    }
+
+    @Override
+    public int skipLettersOrDigits(char[] chars, int from, int to) {
+        int p = from;
+        for (int bound = from + SPECIES.loopBound(to - from); p < bound; p += LANES) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, chars, p);
+            VectorMask<Short> word = v.or((short) 0x20).sub((short) 'a').compare(UNSIGNED_LE, (short) ('z' - 'a'))
+                    .or(v.sub((short) '0').compare(UNSIGNED_LE, (short) ('9' - '0')));
+            if (!word.allTrue()) return p + word.not().firstTrue();
+        }
+        return ScalarCharScanner.INSTANCE.skipLettersOrDigits(chars, p, to);
+    }
+
+    @Override
+    public int indexOf(char[] chars, int from, int to, char c) {
+        int p = from;
+        for (int bound = from + SPECIES.loopBound(to - from); p < bound; p += LANES) {
+            VectorMask<Short> found = ShortVector.fromCharArray(SPECIES, chars, p).compare(EQ, (short) c);
+            if (found.anyTrue()) return p + found.firstTrue();
+        }
+        return ScalarCharScanner.INSTANCE.indexOf(chars, p, to, c);
+    }
+
+    @Override
+    public int indexOfEither(char[] chars, int from, int to, char a, char b) {
+        int p = from;
+        for (int bound = from + SPECIES.loopBound(to - from); p < bound; p += LANES) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, chars, p);
+            VectorMask<Short> found = v.compare(EQ, (short) a).or(v.compare(EQ, (short) b));
+            if (found.anyTrue()) return p + found.firstTrue();
+        }
+        return ScalarCharScanner.INSTANCE.indexOfEither(chars, p, to, a, b);
+    }
+}
@@ -5,11 +5,15 @@ import com.viffx.Lang.Symbols.NonTerminal;
 import com.viffx.Lang.Symbols.Symbol;
 import com.viffx.Lang.Symbols.SymbolType;
 import com.viffx.Lang.Symbols.Terminal;
+import com.viffx.Lang.Utils.CharSource;
 import com.viffx.Lang.Utils.LexicalCharacterBuffer;
+import com.viffx.Lang.Utils.RingBuffer;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 import static java.lang.Character.isLetterOrDigit;
@@ -17,6 +21,9 @@ import static java.lang.Character.isWhitespace;
 
 /* Static Factory
  * load(String filePath)
+ * load(CharSource source)
+ * load(String filePath, Path cacheDirectory)
+ * builder()
  *
  * Item & Production Utilities
  * atEnd(Item item)
@@ -35,10 +42,19 @@ import static java.lang.Character.isWhitespace;
  *
  * Production Access
  * production(int production)
+ * productions()
+ * lhs(int production)
+ * length(int production)
+ * symbolAt(int production, int dot)
  * productionsCount()
  * forEachProduction(Consumer<Production> consumer)
  * forEachProduction(int nonTerminal, Consumer<Integer> consumer)
  * productionRanges(int nonTerminal)
+ * simplify()
+ * simplify(ToIntFunction<Grammar> conflicts)
+ * eliminateRightRecursion()
+ * shape(int production)
+ * element(int production)
  *
  * Special Symbols
  * EPSILON()
@@ -60,17 +76,21 @@ public class Grammar {
     private int START;
 
     // Production fields
-    private final List<Production> productions = new ArrayList<>();
+    private Productions productions;
+    // given by the GrammarBuilder of eliminateRightRecursion, null when every production is PLAIN
+    private final ProductionShape[] shapes;
+    private final int[] elements;
 
     // Lexing fields
     private final LexicalCharacterBuffer lexer;
     private int numRules = 0;
     private int index = 0;
     private final List<Token> currentRule = new ArrayList<Token>();
+    private final RingBuffer<Token> lookahead = new RingBuffer<>();
 
     // ====== CONSTRUCTORS ====== //
-    private Grammar(String filePath) throws Exception {
-        lexer = new LexicalCharacterBuffer(filePath);
+    private Grammar(CharSource source) throws Exception {
+        lexer = new LexicalCharacterBuffer(source);
 
         ParseResult parseResult = parseRules();
         SymbolProcessingResult symbolProcessingResult = processSymbols(parseResult.symbolsMap);
@@ -81,27 +101,66 @@ public class Grammar {
 
         checkForUndefinedNonTerminals(parseResult);
 
-        // eliminate redundant epsilons
-        for (int i = 0; i < productions.size(); i++) {
-            Production production = productions.get(i);
+        // eliminate redundant epsilons, an empty production is one with no symbols
+        productions = parseResult.productions.build().without(EPSILON);
+        shapes = null;
+        elements = null;
+    }
+    // A grammar restored by GrammarCache or assembled by GrammarBuilder, whose productions have already been through every pass of the constructor above.
+    // shapes and elements are by production, or both null when every production is PLAIN.
+    Grammar(Symbol[] symbols, boolean[] isNonTerminal, int[] nonTerminals, Productions productions, int epsilon, int eof, int test, int start, ProductionShape[] shapes, int[] elements) {
+        lexer = null;
+        this.shapes = shapes;
+        this.elements = elements;
+        this.symbols = symbols;
+        this.isNonTerminal = isNonTerminal;
+        this.nonTerminals = nonTerminals;
+        this.productions = productions;
+        EPSILON = epsilon;
+        EOF = eof;
+        TEST = test;
+        START = start;
 
-            // eliminate epsilon
-            Production replacement = new Production(production.lhs());
-            for (int symbol : production) {
-                if (symbol != EPSILON) replacement.add(symbol);
-            }
-
-            // add epsilon to truly empty productions
-            if (production.isEmpty()) {
-                production.add(EPSILON);
-            }
-
-            // replace the production
-            productions.set(i,replacement);
+        Set<String> keywords = new HashSet<>();
+        for (Symbol symbol : symbols) {
+            if (symbol instanceof Terminal t && t.type().equals(SymbolType.KEY)) keywords.add(symbol.value());
         }
+        this.keywords = Collections.unmodifiableSet(keywords);
     }
     public static Grammar load(String filePath) throws Exception {
-        return new Grammar(filePath);
+        return load(CharSource.mapped(filePath));
+    }
+    public static Grammar load(CharSource source) throws Exception {
+        try (source) {
+            return new Grammar(source);
+        }
+    }
+
+    /**
+     * Returns a builder for assembling a grammar in memory, symbol by symbol and production by production.
+     *
+     * @return a new, empty builder
+     * @see GrammarBuilder
+     */
+    public static GrammarBuilder builder() {
+        return new GrammarBuilder();
+    }
+
+    /**
+     * Loads a grammar file through a binary cache, so tools that load the same grammar on
+     * every run only parse it once.
+     * <p>
+     * The cache file is keyed by a hash of the grammar file's contents. If {@code cacheDirectory}
+     * holds one for the current contents it is memory-mapped and nothing is parsed; otherwise the
+     * grammar is parsed as by {@link #load(String)} and its compiled form written there for next time.
+     *
+     * @param filePath       the grammar file
+     * @param cacheDirectory the directory cache files are kept in, created if missing
+     * @return the grammar
+     * @throws Exception if the grammar file cannot be read or is malformed
+     */
+    public static Grammar load(String filePath, Path cacheDirectory) throws Exception {
+        return GrammarCache.load(Path.of(filePath), cacheDirectory);
     }
 
     // ====== PUBLIC API ====== //
@@ -117,7 +176,7 @@ public class Grammar {
      */
     public boolean atEnd(Item item) {
         Objects.requireNonNull(item, "item cannot be null");
-        return productions.get(item.index()).atEnd(item.dot());
+        return item.dot() >= productions.length(item.index());
     }
 
     /**
@@ -135,33 +194,27 @@ public class Grammar {
      */
     public Integer symbol(Item item) {
         Objects.requireNonNull(item, "item cannot be null");
-
-        Production production = productions.get(item.index());
-        if (atEnd(item)) {
-            throwIndexOutOfBoundsException(item.dot(),production.size());
-        }
-        return production.get(item.dot());
+        return productions.symbolAt(item.index(), item.dot());
     }
 
     /**
      * Returns the symbol indexes after the current symbol index of the production that {@code item} references
      *
      * @param item the grammar item whose dot position is inspected
-     * @return a list of all the symbol indexes after the symbol directly after the dot
-     * @throws IndexOutOfBoundsException if the {@code dot + 1} is equal to or greater than the production size
+     * @return a read-only view of all the symbol indexes after the symbol directly after the dot, empty if there are none
      * @throws NullPointerException if {@code item} is {@code null}
      */
     public List<Integer> beta(Item item) {
         Objects.requireNonNull(item, "item cannot be null");
 
-        Production production = productions.get(item.index());
+        Production production = production(item.index());
         int dot = item.dot() + 1;
         if (dot >= production.size()) {
             return Collections.emptyList();
         }
 
-        // return a new list containing RHS indices after the dot
-        return new ArrayList<>(production.subList(dot, production.size()));
+        // a view of the RHS indices after the dot
+        return production.subList(dot, production.size());
     }
 
     /**
@@ -183,7 +236,7 @@ public class Grammar {
     public String toString(Item item) {
         if (item == null) return "null";
         // Retrieve the production corresponding to this item
-        Production production = productions.get(item.index());
+        Production production = production(item.index());
 
         StringBuilder builder = new StringBuilder();
 
@@ -333,13 +386,54 @@ public class Grammar {
     // Grammar - Production Access
 
     /**
-     * Resolves a production index to its corresponding {@link Production} object.
+     * Resolves a production index to its corresponding {@link Production}, a read-only view of {@link #productions()}.
      *
      * @param production the integer index of the production
      * @return the {@link Production} corresponding to the index
      */
     public Production production(int production) {
-        return productions.get(production);
+        return productions.production(production);
+    }
+
+    /**
+     * Returns every production in flat form, for reading right-hand sides without boxing or copying.
+     *
+     * @return the productions
+     */
+    public Productions productions() {
+        return productions;
+    }
+
+    /**
+     * Returns the left-hand side of a production.
+     *
+     * @param production the index of the production
+     * @return the symbol index of its non-terminal
+     */
+    public int lhs(int production) {
+        return productions.lhs(production);
+    }
+
+    /**
+     * Returns the number of symbols on the right-hand side of a production.
+     *
+     * @param production the index of the production
+     * @return its length, {@code 0} for an empty production
+     */
+    public int length(int production) {
+        return productions.length(production);
+    }
+
+    /**
+     * Returns the symbol at position {@code dot} of a production, without allocating.
+     *
+     * @param production the index of the production
+     * @param dot        the position on the right-hand side
+     * @return the symbol index
+     * @throws IndexOutOfBoundsException if the dot is at or past the end of the production
+     */
+    public int symbolAt(int production, int dot) {
+        return productions.symbolAt(production, dot);
     }
 
     /**
@@ -348,19 +442,20 @@ public class Grammar {
      * @return the number of productions
      */
     public int productionsCount() {
-        return productions.size();
+        return productions.count();
     }
 
     /**
      * Applies the given {@link Consumer} action to each {@link Production} in the grammar.
      * <p>
-     * Equivalent to calling {@code productions.forEach(consumer)}, but
-     * this provides a cleaner, encapsulated API.
+     * Each is a read-only view, as returned by {@link #production(int)}.
      *
      * @param consumer a function to process each {@link Production}
      */
     public void forEachProduction(Consumer<Production> consumer) {
-        productions.forEach(consumer);
+        for (int i = 0; i < productions.count(); i++) {
+            consumer.accept(productions.production(i));
+        }
     }
 
     /**
@@ -406,11 +501,78 @@ public class Grammar {
     }
 
     public void eliminateEpsilons() {
-        for (Production production : productions) {
-            List<Integer> rhs = production.stream().filter(symbol -> symbol != EPSILON).toList();
-            production.clear();
-            production.addAll(rhs);
-        }
+        productions = productions.without(EPSILON);
+    }
+
+    /**
+     * Returns an equivalent grammar with useless symbols removed and optional non-terminals inlined.
+     * <p>
+     * Non-terminals that derive nothing or cannot be reached from {@code START} are dropped,
+     * and a non-terminal such as {@code access_modifier > KEY(public) | EPSILON();} is replaced
+     * by two copies of each production using it, one with it and one without, so the parser
+     * never reduces it empty. This grammar is left unchanged, and parse trees built with the
+     * result follow its productions.
+     *
+     * @return the simplified grammar
+     * @throws IllegalArgumentException if {@code START} derives no sentence
+     * @see #simplify(ToIntFunction)
+     */
+    public Grammar simplify() {
+        return GrammarSimplifier.simplify(this, null);
+    }
+
+    /**
+     * Like {@link #simplify()}, but only inlines an optional non-terminal if that does not add conflicts.
+     * <p>
+     * The optional non-terminals are inlined in batches and {@code conflicts} is asked for the
+     * number of conflicts in the parse table of the result; a batch is undone and split in half
+     * if it is higher than before any inlining, down to single non-terminals. It is called once
+     * per batch, so it should be quiet and cheap, like {@code LALR1ParseTableGenerator::conflicts}.
+     *
+     * @param conflicts counts the conflicts in a grammar's parse table
+     * @return the simplified grammar
+     * @throws IllegalArgumentException if {@code START} derives no sentence
+     */
+    public Grammar simplify(ToIntFunction<Grammar> conflicts) {
+        return GrammarSimplifier.simplify(this, Objects.requireNonNull(conflicts, "conflicts cannot be null"));
+    }
+
+    /**
+     * Returns an equivalent grammar whose right-recursive lists are left-recursive.
+     * <p>
+     * A list such as {@code statements > statement_prime end_statement statements | statement_prime;}
+     * keeps every element on the parser's stack until the last one is read, so the stack grows with
+     * the input. Here it becomes {@code statements > statement_prime | statements_list statement_prime;
+     * statements_list > statement_prime end_statement | statements_list statement_prime end_statement;},
+     * which reduces each element as it is read. The new productions report a {@link #shape(int)}
+     * other than {@code PLAIN}, and parsers that follow it build the same tree as for this grammar.
+     * <p>
+     * Apply this after {@link #simplify()}, which does not keep the shapes.
+     *
+     * @return the rewritten grammar, or this grammar if it has no right-recursive lists
+     */
+    public Grammar eliminateRightRecursion() {
+        return RightRecursionRewriter.rewrite(this);
+    }
+
+    /**
+     * Returns how a parser builds the tree node when reducing a production.
+     *
+     * @param production the index of the production
+     * @return its shape, {@code PLAIN} unless this grammar came from {@link #eliminateRightRecursion()}
+     */
+    public ProductionShape shape(int production) {
+        return shapes == null ? ProductionShape.PLAIN : shapes[production];
+    }
+
+    /**
+     * Returns the non-terminal a list production builds nodes for, the {@code N} of {@link ProductionShape}.
+     *
+     * @param production the index of the production
+     * @return the symbol index of that non-terminal, or {@code -1} for a {@code PLAIN} production
+     */
+    public int element(int production) {
+        return shapes == null ? -1 : elements[production];
     }
 
     // Grammar - Special Symbols
@@ -484,7 +646,7 @@ public class Grammar {
 
 
     // ====== INTERNAL DATA TYPES ====== //
-    private record ParseResult(HashMap<Token,Integer> symbolsMap, HashSet<Token> defined) {}
+    private record ParseResult(HashMap<Token,Integer> symbolsMap, HashSet<Token> defined, Productions.Builder productions) {}
     private record SymbolProcessingResult(Symbol[] symbols, boolean[] isNonTerminal, int[] nonTerminals, Set<String> keywords) {}
 
     // ====== PARSING METHODS ====== //
@@ -493,16 +655,15 @@ public class Grammar {
     private ParseResult parseRules() throws Exception {
         HashMap<Token,Integer> symbols = new HashMap<>();
         HashSet<Token> defined = new HashSet<>();
+        Productions.Builder productions = new Productions.Builder();
         while (true) {
-            ignoreWhiteSpace();
-
-            // break if after absorbing white space we reach the end of the file
-            if (lexer.eof()) break;
+            // break if only white space is left before the end of the file
+            if (peek(0).type() == TokenType.EOF) break;
 
             // parse a rule
-            parseRule(symbols,defined);
+            parseRule(symbols,defined,productions);
         }
-        return new ParseResult(symbols,defined);
+        return new ParseResult(symbols,defined,productions);
     }
 
     /**
@@ -550,9 +711,10 @@ public class Grammar {
      * </ul>
      *
      * @param symbols a map tracking all defined symbols, associating each {@link Token} with a unique integer ID
+     * @param productions the productions parsed so far, which this rule's are added to
      * @throws IOException if the grammar rule is malformed, violates constraints, or the file ends unexpectedly
      */
-    private void parseRule(HashMap<Token,Integer> symbols, HashSet<Token> defined) throws IOException {
+    private void parseRule(HashMap<Token,Integer> symbols, HashSet<Token> defined, Productions.Builder productions) throws IOException {
         // update and reset parsing state
         numRules++;
         currentRule.clear();
@@ -581,9 +743,9 @@ public class Grammar {
         currentRule.add(current);
 
         // ------ parse the right hand side ------ //
-        int from = productions.size();
+        int from = productions.count();
 
-        Production production = new Production(id);
+        List<Integer> production = new ArrayList<>();
         // State machine stuff
         label:
         while (true) {
@@ -617,8 +779,8 @@ public class Grammar {
 
             // The current production is terminated
             // Begin a new production for id
-            productions.add(production);
-            production = new Production(lhs);
+            productions.add(lhs, production);
+            production = new ArrayList<>();
 
             // Change the state of the parsing state machine
             String value = current.value();
@@ -635,15 +797,15 @@ public class Grammar {
         }
 
         // record the productionRange for the left-hand side
-        int to = productions.size();
+        int to = productions.count();
 
         if (Token.START.equals(leftHandSide)) {
             if (to - from != 1) throw new IOException(errorContext() + " The NonTerminal START must have only one production.");
-            if (productions.get(from).size() != 1) throw new IOException(errorContext() + " The NonTerminal START may only have one symbol in the right hand side.");
+            if (productions.length(from) != 1) throw new IOException(errorContext() + " The NonTerminal START may only have one symbol in the right hand side.");
         }
 
         symbols.remove(leftHandSide);
-        symbols.put(new Token(TokenType.NON_TERMINAL, new NonTerminal(leftHandSide.value(), new int[]{from,productions.size()})),lhs);
+        symbols.put(new Token(TokenType.NON_TERMINAL, new NonTerminal(leftHandSide.value(), new int[]{from,productions.count()})),lhs);
     }
 
     // ====== SYMBOL FINALIZATION ====== //
@@ -711,15 +873,31 @@ public class Grammar {
      * @throws IOException if an unknown symbol or malformed token is encountered
      */
     private Token next() throws IOException {
-        Token token = temp_next();
+        // Tokens that were peeked at are handed out first
+        Token token = lookahead.isEmpty() ? temp_next() : lookahead.poll();
 //        System.out.println(token);
         return token;
     }
+    /**
+     * Returns the token {@code k} places after the one {@link #next()} will return, without consuming anything.
+     * <p>
+     * Every token up to it is lexed and queued in a {@link RingBuffer}, which {@link #next()} drains
+     * before lexing anything new.
+     *
+     * @param k the distance from the next token, {@code 0} being the next token itself
+     * @return the token, or {@link Token#EOF} past the end of the input
+     * @throws IOException if an unknown symbol or malformed token is encountered
+     */
+    private Token peek(int k) throws IOException {
+        while (lookahead.size() <= k) lookahead.add(temp_next());
+        return lookahead.peek(k);
+    }
     private Token temp_next() throws IOException {
         if (lexer.eof()) return Token.EOF;
 
         index++;
         ignoreWhiteSpace();
+        if (lexer.eof()) return Token.EOF;
 
         // Detect a grammar symbol
         char c = lexer.crntChar();
@@ -0,0 +1,229 @@
+package com.viffx.Lang.Grammar;
+
+import com.viffx.Lang.Symbols.NonTerminal;
+import com.viffx.Lang.Symbols.Symbol;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a {@link Grammar} in memory, without writing or parsing grammar text.
+ *
+ * <p>Symbols are registered by name or by type and value and referred to by the ids this
+ * returns, so a production is just a list of ints:
+ * <pre>
+ *   GrammarBuilder builder = Grammar.builder();
+ *   int statements = builder.nonTerminal("statements");
+ *   int statement = builder.nonTerminal("statement");
+ *   int newLine = builder.terminal(SymbolType.SYM, "\\n");
+ *   builder.start(statements)
+ *          .production(statements, statement, newLine, statements)
+ *          .production(statements)                        // empty
+ *          .production(statement, builder.terminal(SymbolType.NUM, null));
+ *   Grammar grammar = builder.build();
+ * </pre>
+ * This is the same grammar as the text {@code START > statements; statements > statement
+ * SYM(\n) statements | EPSILON(); statement > NUM();}, and {@link #build()} applies the same
+ * rules as {@link Grammar#load(String)}: {@code START} has exactly one production of one
+ * symbol and appears on no right-hand side, every non-terminal used is defined, and
+ * {@code EPSILON} is dropped from right-hand sides. The productions of a non-terminal get
+ * consecutive indices, in the order non-terminals were registered, with {@code START}
+ * always symbol and production {@code 0}.
+ *
+ * <p>Terminal values are written as in a grammar file, with Java escape sequences, and a
+ * {@code null} value is a wildcard such as {@code NUM()}. A builder can be built more than
+ * once and is not thread safe.
+ */
+public final class GrammarBuilder {
+    // ====== CONSTANTS ====== //
+    private static final String START = "START";
+
+    // ====== INSTANCE FIELDS ====== //
+    private final List<Symbol> symbols = new ArrayList<>();
+    private final Map<String, Integer> nonTerminals = new HashMap<>();
+    private final Map<TerminalKey, Integer> terminals = new HashMap<>();
+    // right-hand sides by the id of their non-terminal, null for terminals
+    private final List<List<Rhs>> productions = new ArrayList<>();
+
+    // The same key Terminal.equals would give, except that a wildcard only matches a wildcard
+    private record TerminalKey(SymbolType type, String value) {}
+
+    // A right-hand side and how parsers build its node, see Grammar.shape and Grammar.element
+    private record Rhs(int[] symbols, ProductionShape shape, int element) {}
+
+    // ====== CONSTRUCTORS ====== //
+
+    // Created through Grammar.builder(). START is always symbol 0.
+    GrammarBuilder() {
+        nonTerminal(START);
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns the id of the non-terminal {@code name}, registering it on the first call.
+     *
+     * @param name the name of the non-terminal
+     * @return its symbol id
+     * @throws IllegalArgumentException if the name is blank
+     */
+    public int nonTerminal(String name) {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("Non-terminal names cannot be blank");
+        Integer id = nonTerminals.get(name);
+        if (id != null) return id;
+        id = symbols.size();
+        symbols.add(new NonTerminal(name));
+        productions.add(new ArrayList<>());
+        nonTerminals.put(name, id);
+        return id;
+    }
+
+    /**
+     * Returns the id of the terminal with this type and value, registering it on the first call.
+     *
+     * @param type  the type of the token it matches, {@code EPSILON} or one of {@code ID} through {@code STR}
+     * @param value the text the token must have, or {@code null} to match any token of the type
+     * @return its symbol id
+     * @throws IllegalArgumentException if the type cannot be written in a grammar
+     */
+    public int terminal(SymbolType type, String value) {
+        if (type == null || type.ordinal() > SymbolType.STR.ordinal()) {
+            throw new IllegalArgumentException("Illegal terminal type: " + type);
+        }
+        TerminalKey key = new TerminalKey(type, type == SymbolType.EPSILON ? null : value);
+        Integer id = terminals.get(key);
+        if (id != null) return id;
+        id = symbols.size();
+        symbols.add(new Terminal(key.type(), key.value()));
+        productions.add(null);
+        terminals.put(key, id);
+        return id;
+    }
+
+    /**
+     * Returns the id of {@code EPSILON}, which may appear on a right-hand side to mark it empty.
+     *
+     * @return its symbol id
+     */
+    public int epsilon() {
+        return terminal(SymbolType.EPSILON, null);
+    }
+
+    /**
+     * Defines the production {@code START > nonTerminal}, the root of the grammar.
+     *
+     * @param nonTerminal the id of the non-terminal every input must derive
+     * @return this builder
+     * @throws IllegalArgumentException if the id is not a non-terminal
+     * @throws IllegalStateException if the start production has already been defined
+     */
+    public GrammarBuilder start(int nonTerminal) {
+        checkId(nonTerminal);
+        if (productions.get(nonTerminal) == null) throw new IllegalArgumentException("Not a non-terminal: " + symbols.get(nonTerminal));
+        if (!productions.getFirst().isEmpty()) throw new IllegalStateException("The NonTerminal START can only be defined once.");
+        return production(0, nonTerminal);
+    }
+
+    /**
+     * Adds the production {@code lhs > rhs}. With no symbols, or only {@code EPSILON}, the production is empty.
+     *
+     * @param lhs the id of a non-terminal
+     * @param rhs the ids of the symbols on the right-hand side
+     * @return this builder
+     * @throws IllegalArgumentException if {@code lhs} is not a non-terminal, an id is unknown, or {@code START} is on the right-hand side
+     */
+    public GrammarBuilder production(int lhs, int... rhs) {
+        return production(ProductionShape.PLAIN, -1, lhs, rhs);
+    }
+
+    // Adds lhs > rhs with the shape and element the built grammar reports for it, used by RightRecursionRewriter
+    GrammarBuilder production(ProductionShape shape, int element, int lhs, int... rhs) {
+        checkId(lhs);
+        if (productions.get(lhs) == null) throw new IllegalArgumentException("Not a non-terminal: " + symbols.get(lhs));
+        for (int symbol : rhs) {
+            checkId(symbol);
+            if (symbol == 0) throw new IllegalArgumentException("The NonTerminal START cannot be part of any right hand side.");
+        }
+        if (shape != ProductionShape.PLAIN && (element < 0 || element >= symbols.size() || productions.get(element) == null)) {
+            throw new IllegalArgumentException("Not a non-terminal: " + element);
+        }
+        productions.get(lhs).add(new Rhs(rhs.clone(), shape, shape == ProductionShape.PLAIN ? -1 : element));
+        return this;
+    }
+
+    /**
+     * Builds the grammar from everything added so far.
+     *
+     * @return a new grammar
+     * @throws IllegalStateException if the start production is missing
+     * @throws IllegalArgumentException if a non-terminal is used but has no productions
+     */
+    public Grammar build() {
+        if (productions.getFirst().isEmpty()) throw new IllegalStateException("The NonTerminal START is not defined.");
+
+        List<String> undefined = new ArrayList<>();
+        for (int i = 0; i < symbols.size(); i++) {
+            if (productions.get(i) != null && productions.get(i).isEmpty()) undefined.add(symbols.get(i).value());
+        }
+        if (!undefined.isEmpty()) {
+            throw new IllegalArgumentException("\n\tThe following nonTerminals are undefined in the input grammar: \n\t\t" + String.join("\n\t\t", undefined));
+        }
+
+        // the special terminals every grammar has, after the symbols that were added
+        List<Symbol> all = new ArrayList<>(symbols);
+        int epsilon = id(all, SymbolType.EPSILON, null);
+        int test = id(all, SymbolType.TEST, "#");
+        int eof = id(all, SymbolType.EOF, "$");
+
+        // the productions of each non-terminal in one consecutive range, with their shapes
+        Productions.Builder flat = new Productions.Builder();
+        List<ProductionShape> shapes = new ArrayList<>();
+        List<Integer> elements = new ArrayList<>();
+        boolean plain = true;
+        int[] nonTerminals = new int[this.nonTerminals.size()];
+        boolean[] isNonTerminal = new boolean[all.size()];
+        int count = 0;
+        for (int i = 0; i < symbols.size(); i++) {
+            List<Rhs> rhsList = productions.get(i);
+            if (rhsList == null) continue;
+            int from = flat.count();
+            for (Rhs rhs : rhsList) {
+                flat.add(i, rhs.symbols());
+                shapes.add(rhs.shape());
+                elements.add(rhs.element());
+                plain &= rhs.shape() == ProductionShape.PLAIN;
+            }
+            all.set(i, new NonTerminal(symbols.get(i).value(), new int[]{from, flat.count()}));
+            isNonTerminal[i] = true;
+            nonTerminals[count++] = i;
+        }
+
+        Productions built = flat.build().without(epsilon);
+        if (productions.getFirst().size() != 1 || built.length(0) != 1) {
+            throw new IllegalArgumentException("The NonTerminal START must have exactly one production with one symbol.");
+        }
+        if (plain) return new Grammar(all.toArray(Symbol[]::new), isNonTerminal, nonTerminals, built, epsilon, eof, test, 0, null, null);
+        return new Grammar(all.toArray(Symbol[]::new), isNonTerminal, nonTerminals, built, epsilon, eof, test, 0,
+                shapes.toArray(ProductionShape[]::new), elements.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // ====== HELPERS ====== //
+
+    private void checkId(int symbol) {
+        if (symbol < 0 || symbol >= symbols.size()) {
+            throw new IllegalArgumentException("Unknown symbol id " + symbol + ", ids run from 0 to " + (symbols.size() - 1));
+        }
+    }
+
+    // Finds a special terminal among the added ones, or appends it
+    private int id(List<Symbol> all, SymbolType type, String value) {
+        Integer id = terminals.get(new TerminalKey(type, value));
+        if (id != null) return id;
+        all.add(new Terminal(type, value));
+        return all.size() - 1;
+    }
+}
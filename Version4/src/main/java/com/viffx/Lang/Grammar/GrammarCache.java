@@ -0,0 +1,235 @@
+package com.viffx.Lang.Grammar;
+
+import com.viffx.Lang.Symbols.NonTerminal;
+import com.viffx.Lang.Symbols.Symbol;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+import com.viffx.Lang.Utils.CharSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The compiled form of a {@link Grammar}, kept in a cache directory so later loads of the
+ * same grammar file skip parsing it.
+ *
+ * <p>A cache file is named after the SHA-256 of the grammar file's bytes, so an edited
+ * grammar simply misses and gets a file of its own. It is written once, after the first
+ * parse, through a temporary file and an atomic rename, and memory-mapped by later loads,
+ * which copy the production arrays straight out of the mapping into {@link Productions}.
+ * It holds everything the parsing constructor computes, with the productions already
+ * through epsilon elimination:
+ * <pre>
+ *   int     magic, version
+ *   byte[32] SHA-256 of the grammar file
+ *   int     symbol count, then per symbol:
+ *             byte 0, byte type, string value         (terminal)
+ *             byte 1, string value, int from, int to  (non-terminal, from -1 without a range)
+ *   int     non-terminal count, int[] non-terminals
+ *   int     EPSILON, EOF, TEST, START
+ *   int     production count n, int[n] lhs, int[n + 1] rhs offsets, int[] rhs
+ * </pre>
+ * Strings are a length, {@code -1} for {@code null}, followed by UTF-16 chars. Keywords are
+ * the values of the {@code KEY} terminals and are not stored. A cache file that is truncated,
+ * corrupt or of another version is treated as a miss and rewritten. Every count is checked
+ * against what is left of the file before anything is allocated for it, so a corrupt count
+ * cannot ask for more memory than the file could hold.
+ */
+final class GrammarCache {
+    // ====== CONSTANTS ====== //
+    private static final int MAGIC = 0x47524D43; // GRMC
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".grammar";
+    private static final byte TERMINAL = 0;
+    private static final byte NON_TERMINAL = 1;
+    private static final SymbolType[] TYPES = SymbolType.values();
+    // a terminal with a null value: kind, type and the string length
+    private static final int MIN_SYMBOL_BYTES = 2 + Integer.BYTES;
+
+    private GrammarCache() {}
+
+    // ====== LOADING ====== //
+
+    // Returns the grammar in grammarFile, from its cache file in directory if there is a valid one
+    static Grammar load(Path grammarFile, Path directory) throws Exception {
+        byte[] text = Files.readAllBytes(grammarFile);
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(text);
+        Path cached = directory.resolve(HexFormat.of().formatHex(hash) + EXTENSION);
+
+        if (Files.isRegularFile(cached)) {
+            Grammar grammar = read(cached, hash);
+            if (grammar != null) return grammar;
+        }
+
+        Grammar grammar = Grammar.load(CharSource.of(new String(text, StandardCharsets.UTF_8)));
+        try {
+            write(grammar, hash, cached);
+        } catch (IOException e) {
+            // a cache that cannot be written only costs the next load a parse
+        }
+        return grammar;
+    }
+
+    // Maps a cache file and rebuilds the grammar from it, or returns null if the file is not a valid cache for hash
+    private static Grammar read(Path file, byte[] hash) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+            byte[] stored = new byte[hash.length];
+            in.get(stored);
+            if (!Arrays.equals(stored, hash)) return null;
+
+            Symbol[] symbols = new Symbol[count(in, in.getInt(), MIN_SYMBOL_BYTES)];
+            boolean[] isNonTerminal = new boolean[symbols.length];
+            for (int i = 0; i < symbols.length; i++) {
+                byte kind = in.get();
+                if (kind == TERMINAL) {
+                    SymbolType type = TYPES[in.get()];
+                    symbols[i] = new Terminal(type, readString(in));
+                } else if (kind == NON_TERMINAL) {
+                    String value = readString(in);
+                    int from = in.getInt(), to = in.getInt();
+                    symbols[i] = new NonTerminal(value, from < 0 ? null : new int[]{from, to});
+                    isNonTerminal[i] = true;
+                } else {
+                    return null;
+                }
+            }
+            int[] nonTerminals = readInts(in, in.getInt());
+            for (int nonTerminal : nonTerminals) {
+                if (!isNonTerminal[Objects.checkIndex(nonTerminal, symbols.length)]) return null;
+            }
+            int epsilon = in.getInt(), eof = in.getInt(), test = in.getInt(), start = in.getInt();
+            for (int symbol : new int[]{epsilon, eof, test, start}) Objects.checkIndex(symbol, symbols.length);
+
+            // every production takes at least its lhs and its offset
+            int count = count(in, in.getInt(), 2 * Integer.BYTES);
+            int[] lhs = readInts(in, count);
+            int[] offsets = readInts(in, count + 1);
+            if (offsets[0] != 0) return null;
+            for (int i = 0; i < count; i++) {
+                if (offsets[i + 1] < offsets[i] || !isNonTerminal[Objects.checkIndex(lhs[i], symbols.length)]) return null;
+            }
+            int[] rhs = readInts(in, offsets[count]);
+            for (int symbol : rhs) Objects.checkIndex(symbol, symbols.length);
+            return new Grammar(symbols, isNonTerminal, nonTerminals, Productions.of(lhs, offsets, rhs), epsilon, eof, test, start, null, null);
+        } catch (IOException | RuntimeException e) {
+            // truncated or corrupt, such as a buffer underflow or an index out of range
+            return null;
+        }
+    }
+
+    // ====== WRITING ====== //
+
+    private static void write(Grammar grammar, byte[] hash, Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(hash);
+
+        out.writeInt(grammar.symbolCount());
+        for (int i = 0; i < grammar.symbolCount(); i++) {
+            switch (grammar.symbol(i)) {
+                case Terminal terminal -> {
+                    out.writeByte(TERMINAL);
+                    out.writeByte(terminal.type().ordinal());
+                    writeString(out, terminal.value());
+                }
+                case NonTerminal nonTerminal -> {
+                    out.writeByte(NON_TERMINAL);
+                    writeString(out, nonTerminal.value());
+                    int[] range = nonTerminal.productionsRange();
+                    out.writeInt(range == null ? -1 : range[0]);
+                    out.writeInt(range == null ? -1 : range[1]);
+                }
+                default -> throw new IllegalArgumentException("Cannot cache the symbol " + grammar.symbol(i));
+            }
+        }
+
+        List<Integer> nonTerminals = new ArrayList<>();
+        grammar.forEachNonTerminal(nonTerminals::add);
+        out.writeInt(nonTerminals.size());
+        for (int nonTerminal : nonTerminals) out.writeInt(nonTerminal);
+        out.writeInt(grammar.EPSILON());
+        out.writeInt(grammar.EOF());
+        out.writeInt(grammar.TEST());
+        out.writeInt(grammar.START());
+
+        Productions productions = grammar.productions();
+        int count = productions.count();
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) out.writeInt(productions.lhs(i));
+        out.writeInt(0);
+        for (int i = 0; i < count; i++) out.writeInt(productions.end(i));
+        for (int i = 0; i < count; i++) {
+            for (int k = productions.offset(i, 0); k < productions.end(i); k++) out.writeInt(productions.symbol(k));
+        }
+        out.flush();
+
+        // Written beside the target and renamed, so a concurrent load never maps half a file
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // ====== HELPERS ====== //
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1) return null;
+        count(in, length, Character.BYTES);
+        char[] chars = new char[length];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + 2 * length);
+        return new String(chars);
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        count(in, count, Integer.BYTES);
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * count);
+        return values;
+    }
+
+    // Returns count if that many items of at least bytes each fit in what is left of in, so nothing is allocated for a corrupt count
+    private static int count(ByteBuffer in, int count, int bytes) {
+        if (count < 0 || count > in.remaining() / bytes) throw new BufferUnderflowException();
+        return count;
+    }
+}
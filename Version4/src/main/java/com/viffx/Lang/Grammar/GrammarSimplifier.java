@@ -0,0 +1,312 @@
+package com.viffx.Lang.Grammar;
+
+import com.viffx.Lang.Symbols.NonTerminal;
+import com.viffx.Lang.Symbols.Symbol;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * The optional normalization pass behind {@link Grammar#simplify()}, which rewrites a grammar
+ * into an equivalent one with fewer productions and fewer empty reductions.
+ *
+ * <p>It runs three steps, in this order:
+ * <ol>
+ *   <li>Non-terminals that derive no sentence are removed, with every production using them.</li>
+ *   <li>Non-terminals and terminals that cannot be reached from {@code START} are removed.</li>
+ *   <li>Optional non-terminals are inlined. A non-terminal {@code N} is optional when it has one
+ *   empty production, its other productions are not nullable and it is not recursive, like
+ *   {@code access_modifier > KEY(public) | KEY(private) | EPSILON();}. Every {@code A > α N β}
+ *   becomes {@code A > α N β | α β} and {@code N} loses its empty production, so the parser
+ *   shifts past a missing modifier instead of reducing an empty one.</li>
+ * </ol>
+ * Inlining can turn an LALR(1) grammar into one with conflicts. When a conflict count is
+ * supplied, all optional non-terminals are inlined at once and kept if the count does not go
+ * up; otherwise the batch is split in half and each half is tried the same way, so the count is
+ * only taken again around the optional non-terminals that add conflicts. Without one every
+ * optional non-terminal is inlined. A production with more than {@link #MAX_INLINED} optional
+ * symbols is left alone, since it would be copied {@code 2^k} times.
+ *
+ * <p>The result is rebuilt through {@link GrammarBuilder}, so symbols are renumbered and
+ * parse trees follow the simplified productions.
+ */
+final class GrammarSimplifier {
+    // ====== CONSTANTS ====== //
+    private static final int MAX_INLINED = 4;
+
+    // ====== INSTANCE FIELDS ====== //
+    private final Grammar grammar;
+    // right-hand sides by the id of their non-terminal, null for terminals
+    private final List<List<int[]>> productions;
+
+    // ====== CONSTRUCTORS ====== //
+    private GrammarSimplifier(Grammar grammar) {
+        this.grammar = grammar;
+        this.productions = new ArrayList<>(grammar.symbolCount());
+        for (int i = 0; i < grammar.symbolCount(); i++) {
+            productions.add(grammar.isNonTerminal(i) ? new ArrayList<>() : null);
+        }
+        Productions flat = grammar.productions();
+        for (int p = 0; p < flat.count(); p++) {
+            int[] rhs = new int[flat.length(p)];
+            for (int dot = 0; dot < rhs.length; dot++) rhs[dot] = flat.symbolAt(p, dot);
+            productions.get(flat.lhs(p)).add(rhs);
+        }
+    }
+
+    // Returns the simplified grammar, checking the inlining against conflicts if it is not null
+    static Grammar simplify(Grammar grammar, ToIntFunction<Grammar> conflicts) {
+        GrammarSimplifier simplifier = new GrammarSimplifier(grammar);
+        simplifier.removeNonProductive();
+        simplifier.removeUnreachable();
+
+        List<Integer> optionals = simplifier.optionals();
+        if (conflicts == null) {
+            for (int optional : optionals) simplifier.inline(optional);
+        } else if (!optionals.isEmpty()) {
+            simplifier.inline(optionals, conflicts, conflicts.applyAsInt(simplifier.build()));
+        }
+        return simplifier.build();
+    }
+
+    // ====== USELESS SYMBOLS ====== //
+
+    private void removeNonProductive() {
+        BitSet productive = new BitSet();
+        boolean changed;
+        do {
+            changed = false;
+            for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+                if (productions.get(nonTerminal) == null || productive.get(nonTerminal)) continue;
+                for (int[] rhs : productions.get(nonTerminal)) {
+                    if (derives(rhs, productive)) {
+                        productive.set(nonTerminal);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        } while (changed);
+
+        if (!productive.get(grammar.START())) {
+            throw new IllegalArgumentException("The NonTerminal START does not derive any sentence.");
+        }
+        for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+            List<int[]> rhsList = productions.get(nonTerminal);
+            if (rhsList == null) continue;
+            if (!productive.get(nonTerminal)) rhsList.clear();
+            rhsList.removeIf(rhs -> !derives(rhs, productive));
+        }
+    }
+
+    private void removeUnreachable() {
+        BitSet reachable = reachable();
+        for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+            if (productions.get(nonTerminal) != null && !reachable.get(nonTerminal)) productions.get(nonTerminal).clear();
+        }
+    }
+
+    // Every symbol on the right-hand side of a production reachable from START, and START itself
+    private BitSet reachable() {
+        BitSet reachable = new BitSet();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reachable.set(grammar.START());
+        queue.add(grammar.START());
+        while (!queue.isEmpty()) {
+            for (int[] rhs : productions.get(queue.poll())) {
+                for (int symbol : rhs) {
+                    if (reachable.get(symbol)) continue;
+                    reachable.set(symbol);
+                    if (productions.get(symbol) != null) queue.add(symbol);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    // ====== OPTIONAL NON-TERMINALS ====== //
+
+    // The non-terminals that can be inlined, in symbol order
+    private List<Integer> optionals() {
+        BitSet nullable = nullable();
+        int start = productions.get(grammar.START()).getFirst()[0];
+        List<Integer> optionals = new ArrayList<>();
+        for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+            List<int[]> rhsList = productions.get(nonTerminal);
+            if (rhsList == null || rhsList.size() < 2 || nonTerminal == grammar.START() || nonTerminal == start) continue;
+
+            int empty = 0;
+            boolean optional = true;
+            for (int[] rhs : rhsList) {
+                if (rhs.length == 0) empty++;
+                else if (allNullable(rhs, nullable)) optional = false;
+            }
+            if (optional && empty == 1 && !recursive(nonTerminal)) optionals.add(nonTerminal);
+        }
+        return optionals;
+    }
+
+    // Rewrites every use of optional as present or absent, or returns false if a production would grow too much
+    private boolean inline(int optional) {
+        for (List<int[]> rhsList : productions) {
+            if (rhsList == null) continue;
+            for (int[] rhs : rhsList) {
+                if (count(rhs, optional) > MAX_INLINED) return false;
+            }
+        }
+
+        productions.get(optional).removeIf(rhs -> rhs.length == 0);
+        for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+            List<int[]> rhsList = productions.get(nonTerminal);
+            if (rhsList == null) continue;
+            List<int[]> expanded = new ArrayList<>(rhsList.size());
+            for (int[] rhs : rhsList) {
+                int occurrences = count(rhs, optional);
+                // bit i of the mask drops the i-th occurrence, so mask 0 is the production as written
+                for (int mask = 0; mask < 1 << occurrences; mask++) {
+                    addDistinct(expanded, without(rhs, optional, mask));
+                }
+            }
+            productions.set(nonTerminal, expanded);
+        }
+        return true;
+    }
+
+    // Inlines the whole batch if that keeps the conflicts at baseline, and otherwise each half of it in turn.
+    // A batch that adds none costs one check, so only the optionals that do add conflicts are isolated.
+    private void inline(List<Integer> batch, ToIntFunction<Grammar> conflicts, int baseline) {
+        List<List<int[]>> before = copy();
+        boolean inlined = false;
+        for (int optional : batch) inlined |= inline(optional);
+        if (!inlined || conflicts.applyAsInt(build()) <= baseline) return;
+
+        restore(before);
+        if (batch.size() == 1) return;
+        int half = batch.size() / 2;
+        inline(batch.subList(0, half), conflicts, baseline);
+        inline(batch.subList(half, batch.size()), conflicts, baseline);
+    }
+
+    private BitSet nullable() {
+        BitSet nullable = new BitSet();
+        boolean changed;
+        do {
+            changed = false;
+            for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+                if (productions.get(nonTerminal) == null || nullable.get(nonTerminal)) continue;
+                for (int[] rhs : productions.get(nonTerminal)) {
+                    if (allNullable(rhs, nullable)) {
+                        nullable.set(nonTerminal);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        } while (changed);
+        return nullable;
+    }
+
+    // If nonTerminal can derive a sentential form containing itself
+    private boolean recursive(int nonTerminal) {
+        BitSet seen = new BitSet();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(nonTerminal);
+        while (!queue.isEmpty()) {
+            for (int[] rhs : productions.get(queue.poll())) {
+                for (int symbol : rhs) {
+                    if (symbol == nonTerminal) return true;
+                    if (productions.get(symbol) == null || seen.get(symbol)) continue;
+                    seen.set(symbol);
+                    queue.add(symbol);
+                }
+            }
+        }
+        return false;
+    }
+
+    // ====== BUILDING ====== //
+
+    // Registers the remaining symbols in their original order, then adds the productions
+    private Grammar build() {
+        BitSet used = reachable();
+        GrammarBuilder builder = Grammar.builder();
+        int[] ids = new int[productions.size()];
+        for (int i = 0; i < productions.size(); i++) {
+            if (!used.get(i)) continue;
+            Symbol symbol = grammar.symbol(i);
+            ids[i] = switch (symbol) {
+                case NonTerminal nonTerminal -> builder.nonTerminal(nonTerminal.value());
+                case Terminal terminal -> terminal.type().ordinal() > SymbolType.STR.ordinal() ? -1 : builder.terminal(terminal.type(), terminal.value());
+                default -> throw new IllegalStateException("Grammar symbols are never token spans");
+            };
+        }
+
+        builder.start(ids[productions.get(grammar.START()).getFirst()[0]]);
+        for (int nonTerminal = 0; nonTerminal < productions.size(); nonTerminal++) {
+            if (nonTerminal == grammar.START() || productions.get(nonTerminal) == null || !used.get(nonTerminal)) continue;
+            for (int[] rhs : productions.get(nonTerminal)) {
+                int[] mapped = new int[rhs.length];
+                for (int i = 0; i < rhs.length; i++) mapped[i] = ids[rhs[i]];
+                builder.production(ids[nonTerminal], mapped);
+            }
+        }
+        return builder.build();
+    }
+
+    private List<List<int[]>> copy() {
+        List<List<int[]>> copy = new ArrayList<>(productions.size());
+        for (List<int[]> rhsList : productions) copy.add(rhsList == null ? null : new ArrayList<>(rhsList));
+        return copy;
+    }
+
+    private void restore(List<List<int[]>> copy) {
+        for (int i = 0; i < copy.size(); i++) productions.set(i, copy.get(i));
+    }
+
+    // ====== HELPERS ====== //
+
+    private boolean derives(int[] rhs, BitSet productive) {
+        for (int symbol : rhs) {
+            if (productions.get(symbol) != null && !productive.get(symbol)) return false;
+        }
+        return true;
+    }
+
+    private boolean allNullable(int[] rhs, BitSet nullable) {
+        for (int symbol : rhs) {
+            if (!nullable.get(symbol)) return false;
+        }
+        return true;
+    }
+
+    private static int count(int[] rhs, int symbol) {
+        int count = 0;
+        for (int s : rhs) {
+            if (s == symbol) count++;
+        }
+        return count;
+    }
+
+    private static int[] without(int[] rhs, int symbol, int mask) {
+        int[] result = new int[rhs.length - Integer.bitCount(mask)];
+        int length = 0, occurrence = 0;
+        for (int s : rhs) {
+            if (s == symbol && (mask >>> occurrence++ & 1) != 0) continue;
+            result[length++] = s;
+        }
+        return result;
+    }
+
+    private static void addDistinct(List<int[]> rhsList, int[] rhs) {
+        for (int[] existing : rhsList) {
+            if (Arrays.equals(existing, rhs)) return;
+        }
+        rhsList.add(rhs);
+    }
+}
@@ -1,19 +1,41 @@
 package com.viffx.Lang.Grammar;
 
-import com.viffx.Lang.Compiler.Item;
-
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * One production of a {@link Grammar}: its left-hand side, and its right-hand side as a list of
+ * symbol indices.
+ *
+ * <p>The list is a read-only view of a row of the grammar's {@link Productions}; nothing is
+ * copied, and every method that would modify it throws {@link UnsupportedOperationException}.
+ */
+public final class Production extends AbstractList<Integer> implements RandomAccess {
+    private final Productions productions;
+    private final int index;
+
+    Production(Productions productions, int index) {
+        this.productions = productions;
+        this.index = index;
+    }
 
-public class Production extends ArrayList<Integer> {
-    private final int lhs;
-
-    public Production( int lhs) {
-        this.lhs = lhs;
+    public int index() {
+        return index;
     }
 
     public int lhs() {
-        return lhs;
+        return productions.lhs(index);
+    }
+
+    @Override
+    public Integer get(int dot) {
+        return productions.symbolAt(index, dot);
+    }
+
+    @Override
+    public int size() {
+        return productions.length(index);
     }
 
     public boolean atEnd(int dot) {
@@ -26,14 +48,14 @@ public class Production extends ArrayList<Integer> {
             Grammar.throwIndexOutOfBoundsException(dot,size());
         }
 
-        // return a new list containing RHS indices after the dot
-        return new ArrayList<>(subList(dot, size()));
+        // a view of the RHS indices after the dot
+        return subList(dot, size());
     }
 
     @Override
     public String toString() {
         return "Production{" +
-                "lhs=" + lhs +
+                "lhs=" + lhs() +
                 ", elements=" + super.toString() +
                 '}';
     }
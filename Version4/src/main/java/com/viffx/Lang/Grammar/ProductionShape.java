@@ -0,0 +1,20 @@
+package com.viffx.Lang.Grammar;
+
+/**
+ * How a parser builds the tree node for a reduction, see {@link Grammar#shape(int)}.
+ *
+ * <p>Only grammars returned by {@link Grammar#eliminateRightRecursion()} have productions other
+ * than {@code PLAIN}. There a right-recursive list {@code N > α N | β} is parsed as
+ * {@code N > L β | β; L > L α | α}, and the {@code LIST_} productions put the tree back into the
+ * shape {@code N > α N} would have given it.
+ */
+public enum ProductionShape {
+    // one node with the symbols of the right-hand side as children
+    PLAIN,
+    // L > α, starts a list node holding the first α as an element
+    LIST_FIRST,
+    // L > L α, adds the next α to the list node below it
+    LIST_APPEND,
+    // N > L β, nests the elements of the list node around the node for β
+    LIST_END
+}
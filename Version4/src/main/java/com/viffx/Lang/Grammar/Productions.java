@@ -0,0 +1,189 @@
+package com.viffx.Lang.Grammar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Every production of a {@link Grammar}, stored flat in compressed sparse row form.
+ *
+ * <p>The right-hand sides of all productions are concatenated into one {@code int[] rhs};
+ * production {@code p} occupies {@code rhs[offsets[p], offsets[p + 1])} and its left-hand
+ * side is {@code lhs[p]}. Reading a symbol is two array loads, with no boxed {@code Integer}
+ * and no list per production, which is what the table generator does in its innermost loops.
+ *
+ * <p>The suffix of a production after a dot is the flat range
+ * {@code [offset(p, dot), end(p))}, read with {@link #symbol(int)}:
+ * <pre>
+ *   for (int k = productions.offset(p, dot); k &lt; productions.end(p); k++) {
+ *       int symbol = productions.symbol(k);
+ *       ...
+ *   }
+ * </pre>
+ * {@link #production(int)} gives the same row as a {@link Production}, a read-only list view
+ * for code that wants one. Instances are immutable; this is the only copy of a grammar's
+ * productions.
+ */
+public final class Productions {
+    // ====== INSTANCE FIELDS ====== //
+    private final int[] lhs;
+    private final int[] offsets;
+    private final int[] rhs;
+
+    // ====== CONSTRUCTORS ====== //
+    private Productions(int[] lhs, int[] offsets, int[] rhs) {
+        this.lhs = lhs;
+        this.offsets = offsets;
+        this.rhs = rhs;
+    }
+
+    // The flat form of the given arrays, which are used as they are
+    static Productions of(int[] lhs, int[] offsets, int[] rhs) {
+        return new Productions(lhs, offsets, rhs);
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns a read-only view of a production.
+     *
+     * @param production the index of the production
+     * @return the view
+     * @throws IndexOutOfBoundsException if there is no such production
+     */
+    public Production production(int production) {
+        Objects.checkIndex(production, lhs.length);
+        return new Production(this, production);
+    }
+
+    /**
+     * Returns the number of productions.
+     *
+     * @return the number of productions
+     */
+    public int count() {
+        return lhs.length;
+    }
+
+    /**
+     * Returns the left-hand side of a production.
+     *
+     * @param production the index of the production
+     * @return the symbol index of its non-terminal
+     */
+    public int lhs(int production) {
+        return lhs[production];
+    }
+
+    /**
+     * Returns the number of symbols on the right-hand side of a production.
+     *
+     * @param production the index of the production
+     * @return its length, {@code 0} for an empty production
+     */
+    public int length(int production) {
+        return offsets[production + 1] - offsets[production];
+    }
+
+    /**
+     * Returns the symbol at position {@code dot} of a production's right-hand side.
+     *
+     * @param production the index of the production
+     * @param dot        the position, from {@code 0} to {@code length(production) - 1}
+     * @return the symbol index
+     * @throws IndexOutOfBoundsException if the dot is at or past the end of the production
+     */
+    public int symbolAt(int production, int dot) {
+        Objects.checkIndex(dot, length(production));
+        return rhs[offsets[production] + dot];
+    }
+
+    /**
+     * Returns the flat index of position {@code dot} of a production, where the suffix after the dot starts.
+     *
+     * @param production the index of the production
+     * @param dot        the position, which may be at or past the end of the production
+     * @return the flat index, clamped to {@link #end(int)}
+     */
+    public int offset(int production, int dot) {
+        return Math.min(offsets[production] + dot, offsets[production + 1]);
+    }
+
+    /**
+     * Returns the flat index one past the last symbol of a production.
+     *
+     * @param production the index of the production
+     * @return the flat end index
+     */
+    public int end(int production) {
+        return offsets[production + 1];
+    }
+
+    /**
+     * Returns the symbol at a flat index, as returned by {@link #offset(int, int)}.
+     *
+     * @param offset the flat index
+     * @return the symbol index
+     */
+    public int symbol(int offset) {
+        return rhs[offset];
+    }
+
+    // These productions without any occurrence of symbol, or this if there is none
+    Productions without(int symbol) {
+        int kept = 0;
+        for (int k : rhs) {
+            if (k != symbol) kept++;
+        }
+        if (kept == rhs.length) return this;
+
+        int[] newOffsets = new int[offsets.length];
+        int[] newRhs = new int[kept];
+        int n = 0;
+        for (int p = 0; p < lhs.length; p++) {
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                if (rhs[k] != symbol) newRhs[n++] = rhs[k];
+            }
+            newOffsets[p + 1] = n;
+        }
+        return new Productions(lhs, newOffsets, newRhs);
+    }
+
+    // Collects productions one by one, for the parser of grammar files and GrammarBuilder
+    static final class Builder {
+        private int[] lhs = new int[16];
+        private int[] offsets = new int[17];
+        private int[] rhs = new int[64];
+        private int count;
+
+        void add(int lhs, List<Integer> rhs) {
+            int[] symbols = new int[rhs.size()];
+            for (int i = 0; i < symbols.length; i++) symbols[i] = rhs.get(i);
+            add(lhs, symbols);
+        }
+
+        void add(int lhs, int[] rhs) {
+            if (count == this.lhs.length) {
+                this.lhs = Arrays.copyOf(this.lhs, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            int end = offsets[count];
+            if (end + rhs.length > this.rhs.length) this.rhs = Arrays.copyOf(this.rhs, Math.max(end + rhs.length, this.rhs.length * 2));
+            System.arraycopy(rhs, 0, this.rhs, end, rhs.length);
+            this.lhs[count] = lhs;
+            offsets[++count] = end + rhs.length;
+        }
+
+        int count() {
+            return count;
+        }
+
+        int length(int production) {
+            return offsets[production + 1] - offsets[production];
+        }
+
+        Productions build() {
+            return new Productions(Arrays.copyOf(lhs, count), Arrays.copyOf(offsets, count + 1), Arrays.copyOf(rhs, offsets[count]));
+        }
+    }
+}
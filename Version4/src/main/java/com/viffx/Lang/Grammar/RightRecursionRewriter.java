@@ -0,0 +1,133 @@
+package com.viffx.Lang.Grammar;
+
+import com.viffx.Lang.Symbols.NonTerminal;
+import com.viffx.Lang.Symbols.SymbolType;
+import com.viffx.Lang.Symbols.Terminal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The rewrite behind {@link Grammar#eliminateRightRecursion()}, which turns right-recursive
+ * lists into left-recursive ones so an LR parser reduces each element as soon as it is read.
+ *
+ * <p>A non-terminal other than {@code START} is a right-recursive list when each of its
+ * productions either ends in it and uses it nowhere else, {@code N > α N}, or does not use it at
+ * all, {@code N > β}, with at least one of each. It derives {@code α* β}, which is rewritten
+ * with a new non-terminal {@code L}, named after {@code N}, as
+ * <pre>
+ *   N > β | L β;
+ *   L > α | L α;
+ * </pre>
+ * No empty production is added. For {@code statements > statement_prime end_statement statements
+ * | statement_prime | EPSILON();} this gives
+ * <pre>
+ *   statements > statement_prime | EPSILON() | statements_list statement_prime | statements_list;
+ *   statements_list > statement_prime end_statement | statements_list statement_prime end_statement;
+ * </pre>
+ * The new productions are added with a {@link ProductionShape}, and {@code N} as their element,
+ * so parsers build the tree the right-recursive grammar would have produced.
+ */
+final class RightRecursionRewriter {
+    // ====== CONSTANTS ====== //
+    private static final String LIST_SUFFIX = "_list";
+
+    private RightRecursionRewriter() {}
+
+    // Returns grammar with every right-recursive list rewritten, or grammar itself if it has none
+    static Grammar rewrite(Grammar grammar) {
+        int count = grammar.symbolCount();
+        List<List<int[]>> productions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) productions.add(grammar.isNonTerminal(i) ? new ArrayList<>() : null);
+        Productions flat = grammar.productions();
+        for (int p = 0; p < flat.count(); p++) {
+            int[] rhs = new int[flat.length(p)];
+            for (int dot = 0; dot < rhs.length; dot++) rhs[dot] = flat.symbolAt(p, dot);
+            productions.get(flat.lhs(p)).add(rhs);
+        }
+
+        boolean[] lists = new boolean[count];
+        boolean any = false;
+        for (int nonTerminal = 0; nonTerminal < count; nonTerminal++) {
+            if (nonTerminal == grammar.START() || productions.get(nonTerminal) == null) continue;
+            lists[nonTerminal] = isList(nonTerminal, productions.get(nonTerminal));
+            any |= lists[nonTerminal];
+        }
+        if (!any) return grammar;
+
+        // the original symbols keep their order, each new list follows them
+        Set<String> names = new HashSet<>();
+        grammar.forEachSymbol(symbol -> {
+            if (symbol instanceof NonTerminal) names.add(symbol.value());
+        });
+        GrammarBuilder builder = Grammar.builder();
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = switch (grammar.symbol(i)) {
+                case NonTerminal nonTerminal -> builder.nonTerminal(nonTerminal.value());
+                case Terminal terminal -> terminal.type().ordinal() > SymbolType.STR.ordinal() ? -1 : builder.terminal(terminal.type(), terminal.value());
+                default -> throw new IllegalStateException("Grammar symbols are never token spans");
+            };
+        }
+        int[] listIds = new int[count];
+        for (int nonTerminal = 0; nonTerminal < count; nonTerminal++) {
+            if (!lists[nonTerminal]) continue;
+            String name = grammar.symbol(nonTerminal).value() + LIST_SUFFIX;
+            while (!names.add(name)) name += LIST_SUFFIX;
+            listIds[nonTerminal] = builder.nonTerminal(name);
+        }
+
+        builder.start(ids[productions.get(grammar.START()).getFirst()[0]]);
+        for (int nonTerminal = 0; nonTerminal < count; nonTerminal++) {
+            if (nonTerminal == grammar.START() || productions.get(nonTerminal) == null) continue;
+            int lhs = ids[nonTerminal];
+            for (int[] rhs : productions.get(nonTerminal)) {
+                int[] mapped = new int[rhs.length];
+                for (int i = 0; i < rhs.length; i++) mapped[i] = ids[rhs[i]];
+                if (!lists[nonTerminal]) {
+                    builder.production(lhs, mapped);
+                } else if (rhs.length > 0 && rhs[rhs.length - 1] == nonTerminal) {
+                    // N > α N becomes L > α | L α
+                    int[] alpha = Arrays.copyOf(mapped, mapped.length - 1);
+                    builder.production(ProductionShape.LIST_FIRST, lhs, listIds[nonTerminal], alpha);
+                    builder.production(ProductionShape.LIST_APPEND, lhs, listIds[nonTerminal], prepend(listIds[nonTerminal], alpha));
+                } else {
+                    // N > β becomes N > β | L β
+                    builder.production(lhs, mapped);
+                    builder.production(ProductionShape.LIST_END, lhs, lhs, prepend(listIds[nonTerminal], mapped));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // ====== HELPERS ====== //
+
+    private static boolean isList(int nonTerminal, List<int[]> rhsList) {
+        boolean recursive = false, base = false;
+        for (int[] rhs : rhsList) {
+            int uses = 0;
+            for (int symbol : rhs) {
+                if (symbol == nonTerminal) uses++;
+            }
+            if (uses == 0) {
+                base = true;
+            } else if (uses == 1 && rhs.length > 1 && rhs[rhs.length - 1] == nonTerminal) {
+                recursive = true;
+            } else {
+                return false;
+            }
+        }
+        return recursive && base;
+    }
+
+    private static int[] prepend(int symbol, int[] rhs) {
+        int[] result = new int[rhs.length + 1];
+        result[0] = symbol;
+        System.arraycopy(rhs, 0, result, 1, rhs.length);
+        return result;
+    }
+}
@@ -19,6 +19,11 @@ public final class AstNode {
         return symbol;
     }
 
+    // The canonical name of a leaf holding an interned ID token, or null, so identifiers in the tree compare with ==
+    public Name name() {
+        return symbol instanceof TokenSpan span ? span.name() : null;
+    }
+
     public void add(AstNode child) {
         children.add(child);
     }
@@ -0,0 +1,68 @@
+package com.viffx.Lang.Symbols;
+
+import java.util.Arrays;
+
+/**
+ * The canonical form of an identifier, handed out by a {@link NameInterner}.
+ *
+ * <p>An interner returns the same {@code Name} for every occurrence of the same text, so
+ * names from one interner are compared with {@code ==} and {@link #equals} is left as
+ * identity. The hash is computed once, from the characters, and equals the hash of
+ * {@link #text()}. The {@link #id()} is dense: the {@code n}-th name an interner creates gets
+ * id {@code n - 1}, so tables keyed by name can be plain arrays.
+ */
+public final class Name {
+    private final String text;
+    // the text again, so lookups compare it to spans with one vectorized Arrays.equals
+    private final char[] chars;
+    private final int hash;
+    private final int id;
+
+    // Only created by NameInterner, which guarantees one instance per text
+    Name(String text, int hash, int id) {
+        this.text = text;
+        this.chars = text.toCharArray();
+        this.hash = hash;
+        this.id = id;
+    }
+
+    /**
+     * Returns the identifier. Every occurrence shares this one string.
+     *
+     * @return the text of the name
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Returns the position of this name in the order its interner created names in.
+     *
+     * @return the id, from {@code 0} up to the number of names interned
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Compares the text of this name to {@code chars[from, to)} without materializing it.
+     *
+     * @param chars the array holding the text to compare against
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return if this name holds exactly that text
+     */
+    public boolean contentEquals(char[] chars, int from, int to) {
+        return Arrays.equals(this.chars, 0, this.chars.length, chars, from, to);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,248 @@
+package com.viffx.Lang.Symbols;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of canonical {@link Name}s, looked up straight from character spans and safe to
+ * share between threads lexing different files.
+ *
+ * <p>The pool is split into stripes by hash, each an open addressing table of names. Lookups
+ * never lock: they read the table of their stripe and its slots with acquire loads, and
+ * compare the precomputed hash before any characters, so the common case of an identifier
+ * seen before costs one hash over the span and usually one comparison. Only a miss takes
+ * the lock of its stripe, checks again and inserts; the new name, or the grown table
+ * holding it, is published with a release store, so concurrent readers either see it whole
+ * or miss and fall through to the lock. Threads interning different names rarely meet on
+ * the same stripe.
+ * <pre>
+ *   NameInterner names = new NameInterner();
+ *   Lexer lexer = new Lexer(source, grammar).internNames(names);
+ *   ...
+ *   if (span.name() == declared) ...   // identity, not equals
+ * </pre>
+ * Ids are handed out from one counter, so they are dense across all stripes, and
+ * {@link #name(int)} maps them back in constant time. Names are never removed.
+ */
+public final class NameInterner {
+    // ====== CONSTANTS ====== //
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Name[].class);
+    private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Name[][].class);
+    private static final int DEFAULT_STRIPES = 32;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+    // names by id are kept in chunks of 1024, so growing never copies names
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    // ====== INSTANCE FIELDS ====== //
+    private final Stripe[] stripes;
+    private final int stripeBits;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Name[][] chunks = new Name[16][];
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates an empty pool with enough stripes for a handful of lexing threads.
+     */
+    public NameInterner() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates an empty pool split into {@code stripes} stripes, rounded up to a power of two.
+     * More stripes let more threads insert new names at once.
+     *
+     * @param stripes the number of stripes
+     * @throws IllegalArgumentException if {@code stripes} is not positive
+     */
+    public NameInterner(int stripes) {
+        if (stripes <= 0) throw new IllegalArgumentException("Stripe count must be positive: " + stripes);
+        int count = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) this.stripes[i] = new Stripe();
+        this.stripeBits = Integer.numberOfTrailingZeros(count);
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Returns the canonical name for {@code chars[from, to)}, creating it if this is the first occurrence.
+     * The characters are only copied when a name is created.
+     *
+     * @param chars the array holding the identifier
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return the name
+     * @throws IndexOutOfBoundsException if the range is not inside {@code chars}
+     */
+    public Name intern(char[] chars, int from, int to) {
+        Objects.checkFromToIndex(from, to, chars.length);
+        int hash = hash(chars, from, to);
+        Stripe stripe = stripes[spread(hash) & (stripes.length - 1)];
+        Name name = probe(stripe.table, hash, chars, from, to);
+        return name != null ? name : insert(stripe, hash, chars, from, to);
+    }
+
+    /**
+     * Returns the canonical name for {@code text}, creating it if this is the first occurrence.
+     *
+     * @param text the identifier
+     * @return the name
+     */
+    public Name intern(CharSequence text) {
+        char[] chars = text.toString().toCharArray();
+        return intern(chars, 0, chars.length);
+    }
+
+    /**
+     * Returns the name for {@code chars[from, to)} if it has been interned, without ever locking or creating one.
+     *
+     * @param chars the array holding the identifier
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return the name, or {@code null} if there is none yet
+     * @throws IndexOutOfBoundsException if the range is not inside {@code chars}
+     */
+    public Name find(char[] chars, int from, int to) {
+        Objects.checkFromToIndex(from, to, chars.length);
+        int hash = hash(chars, from, to);
+        return probe(stripes[spread(hash) & (stripes.length - 1)].table, hash, chars, from, to);
+    }
+
+    /**
+     * Returns the name with id {@code id}.
+     *
+     * @param id the id of a name this pool has returned
+     * @return the name
+     * @throws IndexOutOfBoundsException if no name has that id
+     */
+    public Name name(int id) {
+        Objects.checkIndex(id, size.get());
+        Name[][] chunks = this.chunks;
+        int chunk = id >>> CHUNK_BITS;
+        Name[] names = chunk < chunks.length ? (Name[]) CHUNKS.getAcquire(chunks, chunk) : null;
+        Name name = names == null ? null : (Name) SLOTS.getAcquire(names, id & CHUNK_MASK);
+        // the id is taken but the name is still being inserted by another thread
+        if (name == null) throw new IndexOutOfBoundsException("Name " + id + " has not been published yet");
+        return name;
+    }
+
+    /**
+     * Returns the number of names created so far, which is also the id the next one will get.
+     *
+     * @return the number of names
+     */
+    public int size() {
+        return size.get();
+    }
+
+    // ====== HELPERS ====== //
+
+    // One stripe of the pool. table is replaced whole when it grows; count is only touched under the stripe's lock.
+    private static final class Stripe {
+        volatile Table table = new Table(INITIAL_STRIPE_CAPACITY);
+        int count;
+    }
+
+    // The hashes are kept beside the names, so probing past a different name never touches the name itself
+    private static final class Table {
+        final Name[] names;
+        final int[] hashes;
+
+        Table(int capacity) {
+            this.names = new Name[capacity];
+            this.hashes = new int[capacity];
+        }
+    }
+
+    // Linear probing from the slot the hash picks. Tables are never more than half full, so an empty slot soon ends every miss.
+    private Name probe(Table table, int hash, char[] chars, int from, int to) {
+        Name[] names = table.names;
+        int[] hashes = table.hashes;
+        int mask = names.length - 1;
+        for (int i = slot(hash, mask); ; i = (i + 1) & mask) {
+            // the acquire load also makes the hash stored before the name visible
+            Name name = (Name) SLOTS.getAcquire(names, i);
+            if (name == null) return null;
+            if (hashes[i] == hash && name.contentEquals(chars, from, to)) return name;
+        }
+    }
+
+    private Name insert(Stripe stripe, int hash, char[] chars, int from, int to) {
+        synchronized (stripe) {
+            // another thread may have inserted it, or grown the table, since the lock-free probe
+            Table table = stripe.table;
+            Name name = probe(table, hash, chars, from, to);
+            if (name != null) return name;
+
+            name = new Name(new String(chars, from, to - from), hash, size.getAndIncrement());
+            record(name);
+            if (++stripe.count * 2 > table.names.length) {
+                Table grown = new Table(table.names.length * 2);
+                for (Name old : table.names) {
+                    if (old != null) place(grown, old);
+                }
+                place(grown, name);
+                stripe.table = grown;
+            } else {
+                place(table, name);
+            }
+            return name;
+        }
+    }
+
+    // Stores name in the first free slot of its probe sequence, publishing it to lock-free readers
+    private void place(Table table, Name name) {
+        int mask = table.names.length - 1;
+        int i = slot(name.hashCode(), mask);
+        while (table.names[i] != null) i = (i + 1) & mask;
+        table.hashes[i] = name.hashCode();
+        SLOTS.setRelease(table.names, i, name);
+    }
+
+    // Makes name reachable from name(int) before it is published in its stripe
+    private void record(Name name) {
+        int chunk = name.id() >>> CHUNK_BITS;
+        Name[][] chunks = this.chunks;
+        Name[] names = chunk < chunks.length ? (Name[]) CHUNKS.getAcquire(chunks, chunk) : null;
+        if (names == null) names = addChunk(chunk);
+        SLOTS.setRelease(names, name.id() & CHUNK_MASK, name);
+    }
+
+    // Locks the whole pool, but only once per 1024 names
+    private synchronized Name[] addChunk(int chunk) {
+        Name[][] chunks = this.chunks;
+        if (chunk >= chunks.length) chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+        Name[] names = chunks[chunk];
+        if (names == null) {
+            names = new Name[CHUNK_MASK + 1];
+            CHUNKS.setRelease(chunks, chunk, names);
+        }
+        this.chunks = chunks;
+        return names;
+    }
+
+    // The stripe uses the low bits of the spread hash, the slot within it the bits above them
+    private int slot(int hash, int mask) {
+        return (spread(hash) >>> stripeBits) & mask;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Same as String.hashCode, so a name hashes like its text. Four characters per step shorten the chain of multiplications.
+    private static int hash(char[] chars, int from, int to) {
+        int hash = 0;
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            hash = 31 * 31 * 31 * 31 * hash + 31 * 31 * 31 * chars[i] + 31 * 31 * chars[i + 1] + 31 * chars[i + 2] + chars[i + 3];
+        }
+        for (; i < to; i++) hash = 31 * hash + chars[i];
+        return hash;
+    }
+}
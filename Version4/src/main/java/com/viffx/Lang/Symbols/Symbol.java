@@ -1,5 +1,5 @@
 package com.viffx.Lang.Symbols;
 
-public sealed interface Symbol permits Terminal, NonTerminal {
+public sealed interface Symbol permits Terminal, NonTerminal, TokenSpan {
     String value();
 }
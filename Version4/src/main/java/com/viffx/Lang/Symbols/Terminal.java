@@ -11,6 +11,24 @@ public record Terminal(SymbolType type, String value) implements Symbol {
         this(null,value);
     }
 
+    /**
+     * Returns the text a token must have to match this terminal.
+     * <p>
+     * Grammar files write values with Java escape sequences, so {@code SYM(\n)} is stored as a
+     * backslash followed by {@code n}. This translates them the same way the generated
+     * {@code Compiler} source does. Values that are not valid escapes are returned as written.
+     *
+     * @return the translated value, or {@code null} for a wildcard terminal
+     */
+    public String lexeme() {
+        if (value == null) return null;
+        try {
+            return value.translateEscapes();
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
     @Override
     public String toString() {
         return type + "(" + (value == null ? "" : value.replaceAll("\n", "\\\\n")) + ")";
@@ -26,6 +44,7 @@ public record Terminal(SymbolType type, String value) implements Symbol {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, value);
+        // Objects.hash(type, value) without the varargs array
+        return 31 * (31 + Objects.hashCode(type)) + Objects.hashCode(value);
     }
 }
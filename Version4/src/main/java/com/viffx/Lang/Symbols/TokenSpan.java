@@ -0,0 +1,202 @@
+package com.viffx.Lang.Symbols;
+
+import com.viffx.Lang.Utils.Literals;
+
+import java.util.Objects;
+
+/**
+ * A token produced by the lexer, stored as a reference into the source text.
+ *
+ * <p>A span is the {@link SymbolType} of the token plus the {@code [start, start + length)}
+ * range of the source array it was scanned from. No text is copied when the span is
+ * created; {@link #value()} builds the string the first time it is asked for and
+ * caches it.
+ *
+ * <p>An {@code ID} span scanned by a lexer that interns names also carries its canonical
+ * {@link Name}; its {@link #value()} is then the text of the name, so no string is built
+ * for it at all.
+ *
+ * <p>Spans are equal to spans of the same type and text. Parsers match them against
+ * grammar symbols with {@link #matches(Terminal)}.
+ */
+public final class TokenSpan implements Symbol {
+    public static final TokenSpan EOF = new TokenSpan(SymbolType.EOF, "$");
+
+    private final SymbolType type;
+    private final char[] source;
+    private final int start;
+    private final int length;
+    private final Name name;
+    private String value;
+
+    /**
+     * Creates a span over {@code length} characters of {@code source}, starting at {@code start}.
+     * The array is referenced, not copied, and must not be modified afterward.
+     *
+     * @param type   the type of the token
+     * @param source the array holding the source text
+     * @param start  the index of the first character of the token
+     * @param length the number of characters in the token
+     */
+    public TokenSpan(SymbolType type, char[] source, int start, int length) {
+        this(type, source, start, length, null);
+    }
+
+    /**
+     * Creates a span like {@link #TokenSpan(SymbolType, char[], int, int)} that carries the
+     * canonical name of its text.
+     *
+     * @param type   the type of the token
+     * @param source the array holding the source text
+     * @param start  the index of the first character of the token
+     * @param length the number of characters in the token
+     * @param name   the interned text of the token, or {@code null}
+     */
+    public TokenSpan(SymbolType type, char[] source, int start, int length, Name name) {
+        Objects.checkFromIndexSize(start, length, source.length);
+        this.type = type;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+        this.name = name;
+        this.value = name == null ? null : name.text();
+    }
+
+    private TokenSpan(SymbolType type, String value) {
+        this(type, value.toCharArray(), 0, value.length());
+        this.value = value;
+    }
+
+    public SymbolType type() {
+        return type;
+    }
+
+    public char[] source() {
+        return source;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int end() {
+        return start + length;
+    }
+
+    /**
+     * Returns the canonical name of the token, for comparing identifiers by identity.
+     *
+     * @return the name, or {@code null} if the lexer did not intern it
+     */
+    public Name name() {
+        return name;
+    }
+
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        return source[start + index];
+    }
+
+    /**
+     * Returns the text of the token, materializing it on the first call.
+     *
+     * @return the spanned text
+     */
+    @Override
+    public String value() {
+        String v = value;
+        if (v == null) value = v = new String(source, start, length);
+        return v;
+    }
+
+    /**
+     * Decodes the spanned text as an integer literal, without materializing it.
+     *
+     * @return the value of a {@code NUM} token
+     * @throws NumberFormatException if the text is not an integer literal that fits in a {@code long}
+     * @see Literals#parseLong(char[], int, int)
+     */
+    public long longValue() {
+        return Literals.parseLong(source, start, end());
+    }
+
+    /**
+     * Decodes the spanned text as a number literal, without materializing it.
+     *
+     * @return the value of a {@code NUM} token
+     * @throws NumberFormatException if the text is not a number literal
+     * @see Literals#parseDouble(char[], int, int)
+     */
+    public double doubleValue() {
+        return Literals.parseDouble(source, start, end());
+    }
+
+    /**
+     * Returns the spanned text with its escape sequences decoded.
+     *
+     * @return the value of a {@code STR} or {@code CHR} token
+     * @see Literals#unescape(char[], int, int)
+     */
+    public String decoded() {
+        return Literals.unescape(source, start, end());
+    }
+
+    /**
+     * Compares the spanned text to {@code text} without materializing it.
+     *
+     * @param text the text to compare against
+     * @return if the span holds exactly {@code text}
+     */
+    public boolean contentEquals(String text) {
+        if (text.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (source[start + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean contentEquals(TokenSpan other) {
+        if (other.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (source[start + i] != other.source[other.start + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if this token is one the grammar {@code terminal} accepts, without materializing it.
+     *
+     * @param terminal the terminal to match
+     * @return if the types are the same and the terminal's value is either {@code null} (a wildcard
+     * such as {@code NUM()}) or the spanned text
+     */
+    public boolean matches(Terminal terminal) {
+        if (terminal.type() != type) return false;
+        return terminal.value() == null || contentEquals(terminal.value());
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + value().replaceAll("\n", "\\\\n") + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof TokenSpan span) {
+            if (name != null && name == span.name) return span.type == type;
+            return span.type == type && contentEquals(span);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        // An interned name already has the hash of its text precomputed
+        return 31 * (31 + Objects.hashCode(type)) + (name != null ? name.hashCode() : value().hashCode());
+    }
+}
@@ -0,0 +1,50 @@
+package com.viffx.Lang.Utils;
+
+import java.util.Objects;
+
+/**
+ * A {@link CharSource} over a region of a {@code char[]}, read in place.
+ */
+final class ArrayCharSource implements CharSource {
+    private final char[] chars;
+    private final int offset;
+    private final int end;
+    private int position;
+
+    ArrayCharSource(char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        this.chars = chars;
+        this.offset = offset;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    // Accessors used by CharWindow to adopt the array in place
+    char[] array() {
+        return chars;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    int end() {
+        return end;
+    }
+
+    @Override
+    public int read() {
+        if (position >= end) return -1;
+        return chars[position++];
+    }
+
+    @Override
+    public int read(char[] dst, int off, int len) {
+        int remaining = end - position;
+        if (remaining <= 0) return -1;
+        int n = Math.min(len, remaining);
+        System.arraycopy(chars, position, dst, off, n);
+        position += n;
+        return n;
+    }
+}
@@ -0,0 +1,76 @@
+package com.viffx.Lang.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A {@link CharSource} that decodes a {@link ReadableByteChannel} block by block.
+ *
+ * <p>Malformed and unmappable input is replaced rather than reported, matching
+ * the behaviour of the readers the lexers used before.
+ */
+final class ChannelCharSource implements CharSource {
+    private static final int BLOCK_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BLOCK_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BLOCK_SIZE);
+    private boolean endOfInput = false;
+    private boolean flushed = false;
+
+    ChannelCharSource(ReadableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes.flip();
+        chars.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!chars.hasRemaining() && !fill()) return -1;
+        return chars.get();
+    }
+
+    @Override
+    public int read(char[] dst, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!chars.hasRemaining() && !fill()) return -1;
+        int n = Math.min(len, chars.remaining());
+        chars.get(dst, off, n);
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Decodes the next block of characters, returns false once the channel is exhausted
+    private boolean fill() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && !flushed) {
+            if (!endOfInput) {
+                bytes.compact();
+                endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+            }
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) result.throwException();
+            if (endOfInput && !bytes.hasRemaining()) {
+                decoder.flush(chars);
+                flushed = true;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
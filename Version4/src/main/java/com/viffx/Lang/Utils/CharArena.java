@@ -0,0 +1,109 @@
+package com.viffx.Lang.Utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An append-only buffer that many short pieces of text share, addressed by offset.
+ *
+ * <p>Decoded literals are written one after the other into a single growing {@code char[]}
+ * and referred to by their {@code [from, to)} range, instead of each becoming a
+ * {@code String} of its own. {@link #clear()} empties the arena so it can be reused.
+ * Offsets handed out stay valid until then; the backing array may be replaced as the arena
+ * grows, so fetch it with {@link #array()} after appending. Instances are not thread safe.
+ */
+public final class CharArena {
+    // ====== CONSTANTS ====== //
+    private static final int INITIAL_CAPACITY = 256;
+
+    // ====== INSTANCE FIELDS ====== //
+    private char[] chars;
+    private int size;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates an empty arena.
+     */
+    public CharArena() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty arena with room for {@code capacity} characters before it has to grow.
+     *
+     * @param capacity the initial capacity
+     */
+    public CharArena(int capacity) {
+        this.chars = new char[Math.max(capacity, 1)];
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Appends one character.
+     *
+     * @param c the character
+     */
+    public void append(char c) {
+        if (size == chars.length) grow(1);
+        chars[size++] = c;
+    }
+
+    /**
+     * Appends {@code source[from, to)}.
+     *
+     * @param source the array to copy from
+     * @param from   the first index to copy
+     * @param to     one past the last index to copy
+     */
+    public void append(char[] source, int from, int to) {
+        Objects.checkFromToIndex(from, to, source.length);
+        int n = to - from;
+        if (size + n > chars.length) grow(n);
+        System.arraycopy(source, from, chars, size, n);
+        size += n;
+    }
+
+    /**
+     * Returns the number of characters appended since the arena was created or cleared,
+     * which is also the offset the next appended character will get.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the current backing array. Its first {@link #size()} characters are the contents.
+     *
+     * @return the backing array
+     */
+    public char[] array() {
+        return chars;
+    }
+
+    /**
+     * Returns {@code [from, to)} as a string.
+     *
+     * @param from the first offset
+     * @param to   one past the last offset
+     * @return the text
+     */
+    public String text(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        return new String(chars, from, to - from);
+    }
+
+    /**
+     * Empties the arena, keeping its capacity. Every offset handed out before becomes invalid.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void grow(int needed) {
+        chars = Arrays.copyOf(chars, Math.max(size + needed, chars.length * 2));
+    }
+}
@@ -0,0 +1,156 @@
+package com.viffx.Lang.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A forward-only supply of UTF-16 code units for the lexers.
+ *
+ * <p>This is the single input abstraction accepted by {@link LexicalCharacterBuffer},
+ * {@link com.viffx.Lang.Compiler.Lexer} and {@link com.viffx.Lang.Grammar.Grammar#load(CharSource)},
+ * so source text does not have to live in a file to be lexed. Implementations are
+ * obtained through the static factories:
+ * <ul>
+ *     <li>{@link #of(CharSequence)} and {@link #of(char[])} - in-memory text, read in place without copying</li>
+ *     <li>{@link #of(InputStream)} and {@link #of(ReadableByteChannel)} - decoded byte input</li>
+ *     <li>{@link #of(Reader)} - any existing reader</li>
+ *     <li>{@link #mapped(String)} - a memory-mapped UTF-8 file</li>
+ * </ul>
+ *
+ * <p>Sources are not thread safe and are consumed exactly once.
+ */
+public interface CharSource extends Closeable {
+    // ====== SPI ====== //
+
+    /**
+     * Reads the next UTF-16 code unit.
+     *
+     * @return the next code unit, or {@code -1} once the source is exhausted
+     * @throws IOException if the underlying input fails
+     */
+    int read() throws IOException;
+
+    /**
+     * Reads up to {@code len} code units into {@code dst} starting at {@code off}.
+     *
+     * @param dst the destination array
+     * @param off the first index of {@code dst} written to
+     * @param len the maximum number of code units read
+     * @return the number of code units read, or {@code -1} once the source is exhausted
+     * @throws IOException if the underlying input fails
+     */
+    int read(char[] dst, int off, int len) throws IOException;
+
+    /**
+     * Releases any resources held by the source. In-memory sources hold none.
+     *
+     * @throws IOException if the underlying input fails to close
+     */
+    @Override
+    default void close() throws IOException {}
+
+    // ====== FACTORIES ====== //
+
+    /**
+     * Returns a source that reads the given text in place.
+     *
+     * @param text the text to read
+     * @return a source over {@code text}
+     */
+    static CharSource of(CharSequence text) {
+        return new StringCharSource(text);
+    }
+
+    /**
+     * Returns a source that reads the given array in place.
+     *
+     * @param chars the characters to read
+     * @return a source over {@code chars}
+     */
+    static CharSource of(char[] chars) {
+        return of(chars, 0, chars.length);
+    }
+
+    /**
+     * Returns a source that reads {@code length} characters of the given array in place,
+     * starting at {@code offset}.
+     *
+     * @param chars  the characters to read
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return a source over the given region of {@code chars}
+     * @throws IndexOutOfBoundsException if the region does not lie within {@code chars}
+     */
+    static CharSource of(char[] chars, int offset, int length) {
+        return new ArrayCharSource(chars, offset, length);
+    }
+
+    /**
+     * Returns a source that decodes the given stream as UTF-8.
+     *
+     * @param in the stream to decode
+     * @return a source over {@code in}
+     */
+    static CharSource of(InputStream in) {
+        return of(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a source that decodes the given stream with {@code charset}.
+     *
+     * @param in      the stream to decode
+     * @param charset the charset of the stream
+     * @return a source over {@code in}
+     */
+    static CharSource of(InputStream in, Charset charset) {
+        return of(Channels.newChannel(in), charset);
+    }
+
+    /**
+     * Returns a source that decodes the given channel as UTF-8.
+     *
+     * @param channel the channel to decode
+     * @return a source over {@code channel}
+     */
+    static CharSource of(ReadableByteChannel channel) {
+        return of(channel, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a source that decodes the given channel with {@code charset}.
+     *
+     * @param channel the channel to decode
+     * @param charset the charset of the channel
+     * @return a source over {@code channel}
+     */
+    static CharSource of(ReadableByteChannel channel, Charset charset) {
+        return new ChannelCharSource(channel, charset);
+    }
+
+    /**
+     * Returns a source that reads from an existing reader.
+     *
+     * @param reader the reader to read
+     * @return a source over {@code reader}
+     */
+    static CharSource of(Reader reader) {
+        return new ReaderCharSource(reader);
+    }
+
+    /**
+     * Returns a source that decodes a UTF-8 file out of a memory mapping.
+     *
+     * @param filePath path to the file
+     * @return a source over the file's contents
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    static CharSource mapped(String filePath) throws IOException {
+        return new MappedCharSource(filePath);
+    }
+}
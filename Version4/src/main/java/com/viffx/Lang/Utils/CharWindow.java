@@ -0,0 +1,259 @@
+package com.viffx.Lang.Utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * A block-filled character window with a cursor, a mark and arbitrary lookahead.
+ *
+ * <p>Where {@link LexicalCharacterBuffer} hands out one character per call, this
+ * class exposes its backing {@code char[]} so scanners can run tight index loops
+ * over it and commit the cursor once per token:
+ * <pre>
+ *   char[] chars = window.array();
+ *   int p = window.position(), limit = window.limit();
+ *   while (p &lt; limit &amp;&amp; isLetterOrDigit(chars[p])) p++;
+ *   if (p == limit &amp;&amp; window.fill()) { ... reload chars and limit, keep scanning ... }
+ *   window.position(p);
+ * </pre>
+ *
+ * <p>The window is filled from its {@link CharSource} {@link #BLOCK_SIZE} characters
+ * at a time. Characters already read are retained, so offsets stay valid for the
+ * lifetime of the window and any earlier range can be turned back into text with
+ * {@link #text(int, int)}. The window deliberately never slides: token spans, token
+ * tables and source positions all keep offsets into the backing array, so it grows
+ * to hold the whole input rather than dropping what the cursor has passed. Sources
+ * over a {@code char[]} are adopted as the backing array directly and never copied.
+ *
+ * <p>The source is read lazily; I/O failures surface as {@link UncheckedIOException}.
+ * Instances are not thread safe.
+ */
+public final class CharWindow {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * The number of characters requested from the source per fill.
+     */
+    public static final int BLOCK_SIZE = 1 << 16;
+
+    /**
+     * Returned by {@link #peek(int)} past the end of the input.
+     */
+    public static final int EOF = -1;
+
+    // The longest array the VM reliably allocates
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+    // ====== INSTANCE FIELDS ====== //
+
+    /**
+     * Source the window is filled from, or {@code null} once it is exhausted.
+     */
+    private CharSource source;
+
+    /**
+     * Backing array. {@code chars[start, limit)} holds every character read so far.
+     */
+    private char[] chars;
+
+    /**
+     * Index of the first character of the input within {@link #chars}.
+     */
+    private final int start;
+
+    /**
+     * Index one past the last character read.
+     */
+    private int limit;
+
+    /**
+     * Index of the current character.
+     */
+    private int position;
+
+    /**
+     * Position saved by {@link #mark()}, or {@code -1} if there is none.
+     */
+    private int mark = -1;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates a window that is filled from {@code source} on demand.
+     * Array-backed sources are adopted without copying.
+     *
+     * @param source the source supplying the characters
+     */
+    public CharWindow(CharSource source) {
+        if (source instanceof ArrayCharSource array) {
+            this.chars = array.array();
+            this.start = array.offset();
+            this.limit = array.end();
+            this.source = null;
+        } else {
+            this.chars = new char[BLOCK_SIZE];
+            this.start = 0;
+            this.limit = 0;
+            this.source = source;
+        }
+        this.position = start;
+    }
+
+    /**
+     * Creates a window over {@code length} characters of {@code chars}, starting at
+     * {@code offset}. The array is used in place.
+     *
+     * @param chars  the characters of the input
+     * @param offset the index of the first character
+     * @param length the number of characters
+     */
+    public CharWindow(char[] chars, int offset, int length) {
+        this(CharSource.of(chars, offset, length));
+    }
+
+    // ====== CURSOR ====== //
+
+    /**
+     * Returns the index of the current character in {@link #array()}.
+     *
+     * @return the cursor position
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Moves the cursor. Scanners call this once per token after scanning ahead with
+     * a local index.
+     *
+     * @param position the new cursor position
+     * @throws IndexOutOfBoundsException if {@code position} lies outside the characters read so far
+     */
+    public void position(int position) {
+        if (position < start || position > limit) {
+            throw new IndexOutOfBoundsException("Position " + position + " outside of [" + start + ", " + limit + "]");
+        }
+        this.position = position;
+    }
+
+    /**
+     * Returns the index of the first character of the input in {@link #array()}.
+     *
+     * @return the start of the input
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Returns the index one past the last character read so far.
+     *
+     * @return the current fill limit
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the backing array. The reference changes when {@link #fill()} has to grow
+     * the window, so callers must reload it after a successful fill.
+     *
+     * @return the backing array
+     */
+    public char[] array() {
+        return chars;
+    }
+
+    /**
+     * Remembers the current position.
+     */
+    public void mark() {
+        mark = position;
+    }
+
+    /**
+     * Returns the cursor to the last {@link #mark()}.
+     *
+     * @throws IllegalStateException if no mark has been set
+     */
+    public void reset() {
+        if (mark < 0) throw new IllegalStateException("No mark has been set");
+        position = mark;
+    }
+
+    // ====== LOOKAHEAD ====== //
+
+    /**
+     * Returns {@code true} if no characters remain at or after the cursor.
+     *
+     * @return if the end of the input has been reached
+     */
+    public boolean eof() {
+        return !ensure(0);
+    }
+
+    /**
+     * Returns the character {@code n} places after the cursor without moving it.
+     *
+     * @param n the distance from the cursor, {@code 0} being the current character
+     * @return the character, or {@link #EOF} past the end of the input
+     */
+    public int peek(int n) {
+        if (!ensure(n)) return EOF;
+        return chars[position + n];
+    }
+
+    /**
+     * Fills the window until the character {@code n} places after the cursor is available.
+     *
+     * @param n the distance from the cursor
+     * @return {@code false} if the input ends before that character
+     */
+    public boolean ensure(int n) {
+        while (position + n >= limit) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next block from the source, growing the backing array if needed.
+     *
+     * @return {@code false} if the source is exhausted
+     * @throws UncheckedIOException if the source fails
+     * @throws OutOfMemoryError if the input is longer than an array can be
+     */
+    public boolean fill() {
+        if (source == null) return false;
+        try {
+            if (limit == chars.length) {
+                if (chars.length == MAX_LENGTH) throw new OutOfMemoryError("Input longer than " + MAX_LENGTH + " characters");
+                chars = Arrays.copyOf(chars, chars.length < MAX_LENGTH / 2 ? chars.length * 2 : MAX_LENGTH);
+            }
+            int n = source.read(chars, limit, chars.length - limit);
+            if (n < 0) {
+                source.close();
+                source = null;
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ====== TEXT ====== //
+
+    /**
+     * Returns the characters in {@code [from, to)} as a string.
+     *
+     * @param from the index of the first character
+     * @param to   the index one past the last character
+     * @return the text of the range
+     */
+    public String text(int from, int to) {
+        return new String(chars, from, to - from);
+    }
+}
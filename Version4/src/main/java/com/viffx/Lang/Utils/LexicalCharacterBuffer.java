@@ -1,7 +1,5 @@
 package com.viffx.Lang.Utils;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 
 /**
@@ -15,15 +13,20 @@ import java.io.IOException;
  *
  * <p>EOF (end-of-file) is detected when the current character slot in the buffer
  * contains {@code -1}.
+ *
+ * <p>Characters are pulled from a {@link CharSource}, so the buffer can lex files,
+ * streams, channels or in-memory text alike. Files opened by path are read through
+ * {@link CharSource#mapped(String)}, which decodes directly out of a memory mapping
+ * instead of going through a {@code BufferedReader}.
  */
 
 public class LexicalCharacterBuffer {
     // ====== INSTANCE FIELDS ====== //
 
     /**
-    * Reader supplying character from the source file.
+    * Source supplying the characters being lexed.
     * */
-    private final BufferedReader reader;
+    private final CharSource source;
 
     /**
      * Holds the current and next character codes from the input stream.
@@ -40,18 +43,28 @@ public class LexicalCharacterBuffer {
 
     // ====== CONSTRUCTORS ====== //
     /**
-     * Opens the given file for buffered lexical reading and initializes
+     * Maps the given file for lexical reading and initializes
      * the two-character buffer.
      *
      * @param filePath path to the source file being lexed
      * @throws IOException if an I/O error occurs while opening or reading the file
      */
     public LexicalCharacterBuffer(String filePath) throws IOException {
-        reader = new BufferedReader(new FileReader(filePath));
+        this(CharSource.mapped(filePath));
+    }
+
+    /**
+     * Reads from the given source and initializes the two-character buffer.
+     *
+     * @param source source supplying the characters being lexed
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public LexicalCharacterBuffer(CharSource source) throws IOException {
+        this.source = source;
 
         // initialize the buffer
-        buffer[0] = reader.read();
-        buffer[1] = reader.read();
+        buffer[0] = source.read();
+        buffer[1] = source.read();
 
         // update EOF status
         eof = buffer[0] == -1;
@@ -88,7 +101,7 @@ public class LexicalCharacterBuffer {
     /**
      * Advances the buffer by one character, shifting the next lookahead
      * character into the current slot and reading a new lookahead from
-     * the underlying reader.
+     * the underlying source.
      *
      * <p>Before the shift, this method calls {@link #onNextChar()} to allow
      * subclass-specific behavior, such as tracking line/column information.
@@ -103,7 +116,7 @@ public class LexicalCharacterBuffer {
 
         // shift characters
         buffer[0] = buffer[1];
-        buffer[1] = reader.read();
+        buffer[1] = source.read();
 
         // update EOF status
         eof = buffer[0] == -1;
@@ -0,0 +1,263 @@
+package com.viffx.Lang.Utils;
+
+/**
+ * Decodes literal text straight out of a {@code char[]}, without building a {@code String} first.
+ *
+ * <p>Numbers:
+ * <pre>
+ *   integers : digits | 0x hexDigits | 0b binaryDigits, optionally followed by L or l
+ *   floating : digits [(e|E) digits], optionally followed by d, D, f or F
+ * </pre>
+ * Floating literals have no fraction or exponent sign, since the lexer reads {@code 1.5} and
+ * {@code 1e-5} as three tokens each. Every decimal integer, and every other integer that fits in
+ * a {@code long}, is also accepted by {@link #parseDouble}. Literals whose digits and power of
+ * ten are exact in the result type are computed with one multiplication; the rest fall back to
+ * {@link Double#parseDouble(String)} or {@link Float#parseFloat(String)}.
+ *
+ * <p>Escapes: the sequences {@link String#translateEscapes()} understands ({@code \b \t \n
+ * \f \r \s \" \' \\}, octal escapes and escaped line breaks) are decoded; any other
+ * backslash is kept as written, so decoding never fails.
+ */
+public final class Literals {
+    // The powers of ten a double and a float hold exactly
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f,
+    };
+    // Mantissas below these are exact as a double and as a float
+    private static final long EXACT_MANTISSA = 1L << 53;
+    private static final long EXACT_FLOAT_MANTISSA = 1L << 24;
+
+    private Literals() {}
+
+    // ====== INTEGERS ====== //
+
+    /**
+     * Returns if {@code chars[from, to)} is written as an integer literal.
+     * It may still be too large for {@link #parseLong}.
+     *
+     * @param chars the array holding the literal
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return if it is an integer literal
+     */
+    public static boolean isIntegral(char[] chars, int from, int to) {
+        if (to > from && (chars[to - 1] == 'L' || chars[to - 1] == 'l')) to--;
+        int radix = radix(chars, from, to);
+        if (radix != 10) from += 2;
+        if (from == to) return false;
+        for (int p = from; p < to; p++) {
+            if (digit(chars[p], radix) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the integer literal {@code chars[from, to)}. Hexadecimal and binary literals
+     * may use all 64 bits, like Java's, so {@code 0xFFFFFFFFFFFFFFFF} is {@code -1}.
+     *
+     * @param chars the array holding the literal
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return the value
+     * @throws NumberFormatException if the text is not an integer literal or does not fit in a {@code long}
+     */
+    public static long parseLong(char[] chars, int from, int to) {
+        if (!isIntegral(chars, from, to)) throw error("an integer", chars, from, to);
+        int end = chars[to - 1] == 'L' || chars[to - 1] == 'l' ? to - 1 : to;
+        int radix = radix(chars, from, end);
+        long value = 0;
+        if (radix == 10) {
+            value = decimal(chars, from, end);
+            if (value < 0) throw error("an integer", chars, from, to);
+        } else {
+            int bits = radix == 16 ? 4 : 1;
+            for (int p = from + 2; p < end; p++) {
+                if (value >>> (64 - bits) != 0) throw error("an integer", chars, from, to);
+                value = value << bits | digit(chars[p], radix);
+            }
+        }
+        return value;
+    }
+
+    // ====== FLOATING POINT ====== //
+
+    /**
+     * Decodes the number literal {@code chars[from, to)}, integer or floating.
+     * A trailing {@code f} or {@code F} makes it a {@code float} literal, rounded once to
+     * {@code float} precision as {@link Float#parseFloat(String)} would.
+     *
+     * @param chars the array holding the literal
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return the value
+     * @throws NumberFormatException if the text is not a number literal
+     */
+    public static double parseDouble(char[] chars, int from, int to) {
+        if (isIntegral(chars, from, to)) {
+            int end = chars[to - 1] == 'L' || chars[to - 1] == 'l' ? to - 1 : to;
+            if (radix(chars, from, end) != 10) return parseLong(chars, from, to);
+            long value = decimal(chars, from, end);
+            // too large for a long, which a double still holds
+            return value >= 0 ? value : Double.parseDouble(new String(chars, from, end - from));
+        }
+
+        int end = to;
+        char suffix = end > from ? chars[end - 1] : 0;
+        boolean isFloat = suffix == 'f' || suffix == 'F';
+        if (isFloat || suffix == 'd' || suffix == 'D') end--;
+
+        // digits [(e|E) digits], since a NUM token ends before any '.', '+' or '-'
+        int mantissaEnd = from;
+        while (mantissaEnd < end && isDigit(chars[mantissaEnd])) mantissaEnd++;
+        if (mantissaEnd == from) throw error("a number", chars, from, to);
+        int exponent = 0;
+        if (mantissaEnd < end) {
+            if (chars[mantissaEnd] != 'e' && chars[mantissaEnd] != 'E' || mantissaEnd + 1 == end) throw error("a number", chars, from, to);
+            for (int p = mantissaEnd + 1; p < end; p++) {
+                if (!isDigit(chars[p])) throw error("a number", chars, from, to);
+                // saturate, anything this large overflows anyway
+                if (exponent < 100_000) exponent = exponent * 10 + (chars[p] - '0');
+            }
+        }
+
+        // One multiplication of two exact values is rounded once, like the JDK parsers round
+        long mantissa = decimal(chars, from, mantissaEnd);
+        if (isFloat) {
+            if (mantissa >= 0 && mantissa < EXACT_FLOAT_MANTISSA && exponent < FLOAT_POWERS_OF_TEN.length) {
+                return (float) mantissa * FLOAT_POWERS_OF_TEN[exponent];
+            }
+            return Float.parseFloat(new String(chars, from, end - from));
+        }
+        if (mantissa >= 0 && mantissa < EXACT_MANTISSA && exponent < POWERS_OF_TEN.length) {
+            return mantissa * POWERS_OF_TEN[exponent];
+        }
+        return Double.parseDouble(new String(chars, from, end - from));
+    }
+
+    // ====== ESCAPES ====== //
+
+    /**
+     * Returns if {@code chars[from, to)} contains a backslash, so that {@link #unescape} would change it.
+     *
+     * @param chars the array holding the text
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return if the text has escape sequences
+     */
+    public static boolean hasEscapes(char[] chars, int from, int to) {
+        for (int p = from; p < to; p++) {
+            if (chars[p] == '\\') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appends {@code chars[from, to)} to {@code arena} with its escape sequences decoded.
+     *
+     * @param chars the array holding the text
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @param arena the arena to append to
+     * @return the number of characters appended
+     */
+    public static int unescape(char[] chars, int from, int to, CharArena arena) {
+        int start = arena.size();
+        int p = from;
+        while (p < to) {
+            int q = p;
+            while (q < to && chars[q] != '\\') q++;
+            arena.append(chars, p, q);
+            if (q == to) break;
+            if (q + 1 == to) {
+                arena.append('\\');
+                break;
+            }
+            char c = chars[q + 1];
+            p = q + 2;
+            switch (c) {
+                case 'b' -> arena.append('\b');
+                case 't' -> arena.append('\t');
+                case 'n' -> arena.append('\n');
+                case 'f' -> arena.append('\f');
+                case 'r' -> arena.append('\r');
+                case 's' -> arena.append(' ');
+                case '"', '\'', '\\' -> arena.append(c);
+                case '0', '1', '2', '3', '4', '5', '6', '7' -> {
+                    // up to three octal digits, at most \377
+                    int value = c - '0';
+                    int limit = Math.min(to, p + (c <= '3' ? 2 : 1));
+                    while (p < limit && chars[p] >= '0' && chars[p] <= '7') value = value * 8 + (chars[p++] - '0');
+                    arena.append((char) value);
+                }
+                case '\n' -> {}
+                case '\r' -> {
+                    if (p < to && chars[p] == '\n') p++;
+                }
+                default -> {
+                    arena.append('\\');
+                    arena.append(c);
+                }
+            }
+        }
+        return arena.size() - start;
+    }
+
+    /**
+     * Returns {@code chars[from, to)} with its escape sequences decoded.
+     *
+     * @param chars the array holding the text
+     * @param from  the index of its first character
+     * @param to    one past the index of its last character
+     * @return the decoded text
+     */
+    public static String unescape(char[] chars, int from, int to) {
+        if (!hasEscapes(chars, from, to)) return new String(chars, from, to - from);
+        CharArena arena = new CharArena(to - from);
+        unescape(chars, from, to, arena);
+        return arena.text(0, arena.size());
+    }
+
+    // ====== HELPERS ====== //
+
+    // 16 or 2 for a 0x or 0b prefix followed by at least one character, 10 otherwise
+    private static int radix(char[] chars, int from, int to) {
+        if (to - from > 2 && chars[from] == '0') {
+            char c = chars[from + 1];
+            if (c == 'x' || c == 'X') return 16;
+            if (c == 'b' || c == 'B') return 2;
+        }
+        return 10;
+    }
+
+    // The value of the decimal digits chars[from, to), or -1 if it does not fit in a long
+    private static long decimal(char[] chars, int from, int to) {
+        long value = 0;
+        for (int p = from; p < to; p++) {
+            int d = chars[p] - '0';
+            if (value > (Long.MAX_VALUE - d) / 10) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int digit(char c, int radix) {
+        int d;
+        if (c >= '0' && c <= '9') d = c - '0';
+        else if (c >= 'a' && c <= 'f') d = c - 'a' + 10;
+        else if (c >= 'A' && c <= 'F') d = c - 'A' + 10;
+        else return -1;
+        return d < radix ? d : -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static NumberFormatException error(String kind, char[] chars, int from, int to) {
+        return new NumberFormatException("Not " + kind + " literal: " + new String(chars, from, to - from));
+    }
+}
@@ -0,0 +1,204 @@
+package com.viffx.Lang.Utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharSource} that decodes a UTF-8 file straight out of a memory-mapped
+ * {@link FileChannel} region.
+ *
+ * <p>Unlike {@code BufferedReader(new FileReader(...))}, no intermediate byte or
+ * char buffers are filled and no {@link java.nio.charset.CharsetDecoder} is run.
+ * ASCII bytes (the overwhelming majority of source text) are returned directly
+ * from the mapping; multibyte UTF-8 sequences are decoded by hand, and
+ * supplementary code points are returned as two UTF-16 surrogates. Malformed
+ * sequences decode to {@code U+FFFD}.
+ *
+ * <p>Files larger than {@link #REGION_SIZE} are mapped one region at a time.
+ * The channel is released as soon as the last region has been mapped.
+ *
+ * <p>Instances are not thread safe.
+ */
+final class MappedCharSource implements CharSource {
+    // ====== CONSTANTS ====== //
+
+    /**
+     * The largest number of bytes mapped at once.
+     */
+    static final int REGION_SIZE = 1 << 30;
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    // ====== INSTANCE FIELDS ====== //
+
+    /**
+     * Channel the regions are mapped from, or {@code null} once every region has been mapped.
+     */
+    private FileChannel channel;
+
+    /**
+     * Total size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * File offset of the first byte after the current region.
+     */
+    private long mapped;
+
+    /**
+     * The region currently being decoded.
+     */
+    private MappedByteBuffer region;
+
+    /**
+     * The low surrogate of a supplementary code point whose high surrogate was
+     * returned by the previous read, or {@code 0} if there is none.
+     */
+    private char pendingLowSurrogate;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Maps the given file for reading.
+     *
+     * @param filePath path to the file being read
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedCharSource(String filePath) throws IOException {
+        channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            mapNextRegion();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // ====== CHAR SOURCE API ====== //
+
+    /**
+     * Reads a single UTF-16 code unit.
+     *
+     * @return the next code unit, or {@code -1} at the end of the file
+     * @throws IOException if the next region cannot be mapped
+     */
+    @Override
+    public int read() throws IOException {
+        // ASCII fast path
+        if (pendingLowSurrogate == 0 && region.hasRemaining()) {
+            byte b = region.get();
+            if (b >= 0) return b;
+            return decode(b);
+        }
+        return readSlow();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int n = 0;
+        while (n < len) {
+            // copy a run of ASCII bytes without leaving the loop
+            if (pendingLowSurrogate == 0) {
+                int limit = Math.min(len - n, region.remaining());
+                int i = 0;
+                while (i < limit) {
+                    byte b = region.get();
+                    if (b < 0) {
+                        region.position(region.position() - 1);
+                        break;
+                    }
+                    cbuf[off + n + i] = (char) b;
+                    i++;
+                }
+                n += i;
+                if (n == len) break;
+            }
+            int c = readSlow();
+            if (c < 0) break;
+            cbuf[off + n++] = (char) c;
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // ====== DECODING ====== //
+
+    // Handles pending surrogates, region boundaries and non-ASCII bytes
+    private int readSlow() throws IOException {
+        if (pendingLowSurrogate != 0) {
+            char low = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+            return low;
+        }
+        int b = nextByte();
+        if (b < 0) return -1;
+        if (b < 0x80) return b;
+        return decode((byte) b);
+    }
+
+    // Decodes the remainder of a multibyte sequence whose lead byte has already been consumed
+    private int decode(byte lead) throws IOException {
+        int b0 = lead & 0xFF;
+        int length;
+        int codePoint;
+        if ((b0 & 0xE0) == 0xC0) {
+            length = 1;
+            codePoint = b0 & 0x1F;
+        } else if ((b0 & 0xF0) == 0xE0) {
+            length = 2;
+            codePoint = b0 & 0x0F;
+        } else if ((b0 & 0xF8) == 0xF0) {
+            length = 3;
+            codePoint = b0 & 0x07;
+        } else {
+            return REPLACEMENT;
+        }
+
+        for (int i = 0; i < length; i++) {
+            int b = peekByte();
+            if (b < 0 || (b & 0xC0) != 0x80) return REPLACEMENT;
+            nextByte();
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+
+        if (!Character.isBmpCodePoint(codePoint)) {
+            if (!Character.isValidCodePoint(codePoint)) return REPLACEMENT;
+            pendingLowSurrogate = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        }
+        return codePoint;
+    }
+
+    private int nextByte() throws IOException {
+        if (!region.hasRemaining() && !mapNextRegion()) return -1;
+        return region.get() & 0xFF;
+    }
+
+    private int peekByte() throws IOException {
+        if (!region.hasRemaining() && !mapNextRegion()) return -1;
+        return region.get(region.position()) & 0xFF;
+    }
+
+    // Maps the next region of the file, returns false if the whole file has been consumed
+    private boolean mapNextRegion() throws IOException {
+        if (channel == null) return false;
+        long length = Math.min(REGION_SIZE, size - mapped);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+        mapped += length;
+        if (mapped >= size) close();
+        return length > 0;
+    }
+}
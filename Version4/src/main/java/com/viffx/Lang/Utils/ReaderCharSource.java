@@ -0,0 +1,30 @@
+package com.viffx.Lang.Utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link CharSource} that delegates to an existing {@link Reader}.
+ */
+final class ReaderCharSource implements CharSource {
+    private final Reader reader;
+
+    ReaderCharSource(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return reader.read();
+    }
+
+    @Override
+    public int read(char[] dst, int off, int len) throws IOException {
+        return reader.read(dst, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
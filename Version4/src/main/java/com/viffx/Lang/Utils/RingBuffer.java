@@ -0,0 +1,145 @@
+package com.viffx.Lang.Utils;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFO queue over a power-of-two circular array, used for k-token lookahead.
+ *
+ * <p>Unlike {@code Version3}'s {@code FixedSizeQueue}, which walked a stream to reach an
+ * index, every operation here is a masked array access: {@link #peek(int)} is
+ * {@code elements[(head + k) & mask]}. Nothing is allocated once the buffer has reached
+ * the largest lookahead its owner uses; it only grows (doubling) when more elements are
+ * queued than it can hold.
+ * <pre>
+ *   while (lookahead.size() &lt;= k) lookahead.add(lexer.scan());
+ *   Token kth = lookahead.peek(k);
+ *   Token first = lookahead.poll();
+ * </pre>
+ * Instances are not thread safe.
+ *
+ * @param <E> the type of the queued elements
+ */
+public final class RingBuffer<E> {
+    // ====== CONSTANTS ====== //
+    private static final int DEFAULT_CAPACITY = 8;
+
+    // ====== INSTANCE FIELDS ====== //
+    private Object[] elements;
+    private int mask;
+    private int head;
+    private int size;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates a buffer holding up to eight elements before it grows.
+     */
+    public RingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a buffer holding up to {@code capacity} elements, rounded up to a power of two,
+     * before it grows.
+     *
+     * @param capacity the initial capacity
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.mask = size - 1;
+    }
+
+    // ====== PUBLIC API ====== //
+
+    /**
+     * Appends {@code element} to the tail of the queue.
+     *
+     * @param element the element to add
+     */
+    public void add(E element) {
+        if (size == elements.length) grow();
+        elements[(head + size) & mask] = element;
+        size++;
+    }
+
+    /**
+     * Removes and returns the head of the queue.
+     *
+     * @return the oldest element
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public E poll() {
+        if (size == 0) throw new NoSuchElementException("The ring buffer is empty");
+        E element = element(head);
+        elements[head] = null;
+        head = (head + 1) & mask;
+        size--;
+        return element;
+    }
+
+    /**
+     * Returns the element {@code k} places behind the head without removing anything.
+     *
+     * @param k the distance from the head, {@code 0} being the head itself
+     * @return the element
+     * @throws IndexOutOfBoundsException if fewer than {@code k + 1} elements are queued
+     */
+    public E peek(int k) {
+        if (k < 0 || k >= size) throw new IndexOutOfBoundsException("Lookahead " + k + " with " + size + " queued elements");
+        return element((head + k) & mask);
+    }
+
+    /**
+     * Returns the number of queued elements.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if no elements are queued.
+     *
+     * @return if the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every element.
+     */
+    public void clear() {
+        while (size > 0) poll();
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(peek(i));
+        }
+        return builder.append(']').toString();
+    }
+
+    // ====== HELPERS ====== //
+    @SuppressWarnings("unchecked")
+    private E element(int index) {
+        return (E) elements[index];
+    }
+
+    // Unrolls the queue to the start of an array twice the size
+    private void grow() {
+        Object[] grown = new Object[elements.length * 2];
+        for (int i = 0; i < size; i++) grown[i] = elements[(head + i) & mask];
+        elements = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.viffx.Lang.Utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded, lock-free queue for exactly one producer thread and one consumer thread.
+ *
+ * <p>The queue is a power-of-two array with two ever-increasing counters. Only the producer
+ * writes {@code tail} and only the consumer writes {@code head}; each publishes its counter
+ * with a release store and reads the other's with an acquire load, which is all the
+ * synchronization a handoff needs. Each side also caches the last value it saw of the
+ * other's counter, so it only touches the shared cache line when the queue looks full
+ * (producer) or empty (consumer).
+ *
+ * <p>{@link #offer(Object)} and {@link #poll()} never block; callers decide how to wait.
+ * Using the queue from more than one producer or consumer thread at a time is not supported.
+ *
+ * @param <E> the type of the queued elements
+ */
+public final class SpscQueue<E> {
+    // ====== CONSTANTS ====== //
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SpscQueue.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SpscQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // ====== INSTANCE FIELDS ====== //
+    private final Object[] elements;
+    private final int mask;
+
+    // written by the consumer only
+    private long head;
+    private long cachedTail;
+
+    // written by the producer only
+    private long tail;
+    private long cachedHead;
+
+    // ====== CONSTRUCTORS ====== //
+
+    /**
+     * Creates a queue holding up to {@code capacity} elements, rounded up to a power of two.
+     *
+     * @param capacity the capacity
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public SpscQueue(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.mask = size - 1;
+    }
+
+    // ====== PRODUCER ====== //
+
+    /**
+     * Appends {@code element} if there is room. Must only be called by the producer thread.
+     *
+     * @param element the element to add
+     * @return {@code false} if the queue is full
+     */
+    public boolean offer(E element) {
+        long t = tail;
+        if (t - cachedHead == elements.length) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            if (t - cachedHead == elements.length) return false;
+        }
+        elements[(int) t & mask] = element;
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    // ====== CONSUMER ====== //
+
+    /**
+     * Removes and returns the oldest element. Must only be called by the consumer thread.
+     *
+     * @return the element, or {@code null} if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head;
+        if (h == cachedTail) {
+            cachedTail = (long) TAIL.getAcquire(this);
+            if (h == cachedTail) return null;
+        }
+        int index = (int) h & mask;
+        E element = (E) elements[index];
+        elements[index] = null;
+        HEAD.setRelease(this, h + 1);
+        return element;
+    }
+
+    /**
+     * Returns the capacity of the queue.
+     *
+     * @return the maximum number of queued elements
+     */
+    public int capacity() {
+        return elements.length;
+    }
+}
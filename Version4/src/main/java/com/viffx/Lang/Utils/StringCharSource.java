@@ -0,0 +1,35 @@
+package com.viffx.Lang.Utils;
+
+/**
+ * A {@link CharSource} over a {@link CharSequence}, read in place.
+ */
+final class StringCharSource implements CharSource {
+    private final CharSequence text;
+    private int position = 0;
+
+    StringCharSource(CharSequence text) {
+        this.text = text;
+    }
+
+    @Override
+    public int read() {
+        if (position >= text.length()) return -1;
+        return text.charAt(position++);
+    }
+
+    @Override
+    public int read(char[] dst, int off, int len) {
+        int remaining = text.length() - position;
+        if (remaining <= 0) return -1;
+        int n = Math.min(len, remaining);
+        if (text instanceof String s) {
+            s.getChars(position, position + n, dst, off);
+        } else {
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = text.charAt(position + i);
+            }
+        }
+        position += n;
+        return n;
+    }
+}